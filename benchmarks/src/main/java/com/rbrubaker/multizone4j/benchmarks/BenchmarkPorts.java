@@ -0,0 +1,21 @@
+package com.rbrubaker.multizone4j.benchmarks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out a fresh simulator port for each benchmark trial, so a trial never connects to a simulator that is still closing.
+ * @author Justin Brubaker
+ *
+ */
+final class BenchmarkPorts {
+
+	private static final AtomicInteger NEXT_PORT = new AtomicInteger(Integer.getInteger("multizone4j.benchmark.port", 15020));
+	
+	private BenchmarkPorts() {
+	}
+	
+	static int next() {
+		return NEXT_PORT.getAndIncrement();
+	}
+	
+}
@@ -0,0 +1,88 @@
+package com.rbrubaker.multizone4j.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rbrubaker.multizone4j.ModbusBus;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+import com.rbrubaker.multizone4j.simulator.MultiZoneSimulator;
+import com.rbrubaker.multizone4j.simulator.SimulatedMultiZone;
+
+/**
+ * Measures how many complete polls of N devices sharing one bus can be made per second.
+ * Each operation polls every device once through the bus scheduler and waits for all of them.
+ * @author Justin Brubaker
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BusThroughputBenchmark {
+
+	@Param({"1", "4", "16"})
+	public int devices;
+	
+	/**
+	 * How long each simulated device takes to answer each request.
+	 */
+	@Param({"0", "5"})
+	public long latencyMillis;
+	
+	private MultiZoneSimulator simulator;
+	private MultiZoneDevice[] polled;
+	private ZoneStatusBuffer[] buffers;
+	private CompletableFuture<?>[] pending;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		simulator = new MultiZoneSimulator(BenchmarkPorts.next());
+		ModbusBus bus = simulator.createBus();
+		polled = new MultiZoneDevice[devices];
+		buffers = new ZoneStatusBuffer[devices];
+		pending = new CompletableFuture<?>[devices];
+		for (int i = 0; i < devices; i++) {
+			SimulatedMultiZone simulated = simulator.addDevice(i + 1);
+			simulated.setLatencyMillis(latencyMillis);
+			polled[i] = new MultiZoneDevice(i + 1, bus);
+			polled[i].setZonePollInterval(Duration.ZERO);
+			buffers[i] = new ZoneStatusBuffer();
+		}
+		simulator.start();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (MultiZoneDevice device : polled) {
+			device.disconnect();
+		}
+		simulator.stop();
+	}
+	
+	@Benchmark
+	public void pollAllDevices() {
+		for (int i = 0; i < devices; i++) {
+			pending[i] = polled[i].readAllZonesIntoAsync(buffers[i]);
+		}
+		CompletableFuture.allOf(pending).join();
+	}
+	
+}
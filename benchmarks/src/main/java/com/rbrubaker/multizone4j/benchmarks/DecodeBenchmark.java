@@ -0,0 +1,96 @@
+package com.rbrubaker.multizone4j.benchmarks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rbrubaker.multizone4j.CurrentZoneStatus;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+import com.rbrubaker.multizone4j.registers.ReadPlan;
+import com.rbrubaker.multizone4j.registers.ReadPlanner;
+
+/**
+ * Measures the cost of turning raw registers into values, without any modbus traffic.
+ * @author Justin Brubaker
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+	private int[] registers;
+	private Instant takenAt;
+	private long takenAtMillis;
+	private ZoneStatusBuffer buffer;
+	private ReadPlanner planner;
+	private EnumSet<MultiZoneRegister> statusRegisters;
+	
+	@Setup
+	public void setup() {
+		registers = new int[DeviceSnapshot.REGISTER_COUNT];
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = (i * 37) % 1000;
+		}
+		takenAt = Instant.now();
+		takenAtMillis = takenAt.toEpochMilli();
+		buffer = new ZoneStatusBuffer();
+		planner = new ReadPlanner();
+		statusRegisters = EnumSet.noneOf(MultiZoneRegister.class);
+		for (MultiZoneRegister register : MultiZoneRegister.values()) {
+			if (register.getFunctionCode() == 3) {
+				statusRegisters.add(register);
+			}
+		}
+	}
+	
+	@Benchmark
+	public ArrayList<CurrentZoneStatus> snapshotZoneStatuses() {
+		return new DeviceSnapshot(registers, takenAt).getAllCurrentZoneStatuses();
+	}
+	
+	/**
+	 * The same decode that {@link com.rbrubaker.multizone4j.MultiZoneDevice#readAllZonesIntoAsync(ZoneStatusBuffer)} runs on each read.
+	 */
+	@Benchmark
+	public ZoneStatusBuffer bufferZoneStatuses() {
+		buffer.fill(registers, MultiZoneRegister.ZONE_PPM.getAddress() - DeviceSnapshot.FIRST_REGISTER, takenAtMillis);
+		return buffer;
+	}
+	
+	@Benchmark
+	public void snapshotScaledGetters(Blackhole blackhole) {
+		DeviceSnapshot snapshot = new DeviceSnapshot(registers, takenAt);
+		blackhole.consume(snapshot.getManifoldPressure());
+		blackhole.consume(snapshot.getAmbientPressure());
+		blackhole.consume(snapshot.getVacuumPressure());
+		blackhole.consume(snapshot.getBenchTemp());
+		blackhole.consume(snapshot.getAveVoltage());
+		blackhole.consume(snapshot.getZeroVolts());
+		blackhole.consume(snapshot.getAveAu());
+	}
+	
+	@Benchmark
+	public ReadPlan planStatusRegisters() {
+		return planner.plan(statusRegisters);
+	}
+	
+}
@@ -0,0 +1,120 @@
+package com.rbrubaker.multizone4j.benchmarks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rbrubaker.multizone4j.CurrentZoneStatus;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+import com.rbrubaker.multizone4j.simulator.MultiZoneSimulator;
+import com.rbrubaker.multizone4j.simulator.SimulatedMultiZone;
+import com.rbrubaker.multizone4j.simulator.ZoneScript;
+
+/**
+ * Measures one poll of a simulated device, from the api call to the decoded values.
+ * Run with <code>-prof gc</code> to see the allocation per poll.
+ * @author Justin Brubaker
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PollBenchmark {
+
+	/**
+	 * How long the simulated device takes to answer each request.
+	 */
+	@Param({"0"})
+	public long latencyMillis;
+	
+	private MultiZoneSimulator simulator;
+	private MultiZoneDevice device;
+	private ZoneStatusBuffer buffer;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		simulator = new MultiZoneSimulator(BenchmarkPorts.next());
+		SimulatedMultiZone simulated = simulator.addDevice(1);
+		simulated.setLatencyMillis(latencyMillis);
+		simulated.setZoneDwellMillis(100);
+		for (int zone = 0; zone < 16; zone++) {
+			simulated.setZoneScript(zone, ZoneScript.sine(200, 150, 10_000 + zone * 1000));
+		}
+		simulator.start();
+		
+		device = new MultiZoneDevice(1, simulator.createBus());
+		device.setZonePollInterval(Duration.ZERO);
+		buffer = new ZoneStatusBuffer();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		device.disconnect();
+		simulator.stop();
+	}
+	
+	@Benchmark
+	public ArrayList<CurrentZoneStatus> getAllCurrentZoneStatuses() throws Exception {
+		return device.getAllCurrentZoneStatuses();
+	}
+	
+	@Benchmark
+	public ZoneStatusBuffer readAllZonesInto() throws Exception {
+		return device.readAllZonesInto(buffer);
+	}
+	
+	@Benchmark
+	public DeviceSnapshot getSnapshot() throws Exception {
+		return device.getSnapshot();
+	}
+	
+	/**
+	 * The same zone data as {@link #getAllCurrentZoneStatuses()}, read one zone per request.
+	 */
+	@Benchmark
+	public void singleZoneGetters(Blackhole blackhole) throws Exception {
+		for (int zone = 0; zone < 16; zone++) {
+			blackhole.consume(device.getCurrentZoneStatus(zone));
+		}
+	}
+	
+	/**
+	 * Status values read one register per request, compared with the single block read of {@link #getSnapshot()}.
+	 */
+	@Benchmark
+	public void singleStatusGetters(Blackhole blackhole) throws Exception {
+		blackhole.consume(device.getFaultCode());
+		blackhole.consume(device.getCurrentOperatingMode());
+		blackhole.consume(device.getCurrentState());
+		blackhole.consume(device.getActiveZone());
+		blackhole.consume(device.getMaxAlarm());
+		blackhole.consume(device.getActiveAlarmCount());
+		blackhole.consume(device.getAcknowledgedAlarmCount());
+		blackhole.consume(device.getHighestConcentrationZone());
+		blackhole.consume(device.getHighestConcentration());
+		blackhole.consume(device.getZonesInstalled());
+		blackhole.consume(device.getManifoldPressure());
+		blackhole.consume(device.getBenchPpm());
+	}
+	
+}
@@ -0,0 +1,82 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.reference.AlarmStatus;
+
+/**
+ * This class is an immutable copy of the alarm summary registers (2037-2039) of a Bacharach MultiZone device.
+ * Together they change whenever any zone goes into or out of alarm or an alarm is acknowledged, so they can be read often to tell when the zones need to be read.
+ * Two summaries are equal when their register values are equal. The time they were read is ignored.
+ * Use {@link MultiZoneDevice#getAlarmSummary()} to read a summary from a device.
+ * @author Justin Brubaker
+ *
+ */
+public class AlarmSummary {
+
+	/**
+	 * The number of registers in a summary. (2037-2039)
+	 */
+	public static final int REGISTER_COUNT = 3;
+	
+	private final int maxAlarm;
+	private final int activeAlarmCount;
+	private final int acknowledgedAlarmCount;
+	private final Instant takenAt;
+	
+	public AlarmSummary(int _maxAlarm, int _activeAlarmCount, int _acknowledgedAlarmCount, Instant _takenAt) {
+		super();
+		maxAlarm = _maxAlarm;
+		activeAlarmCount = _activeAlarmCount;
+		acknowledgedAlarmCount = _acknowledgedAlarmCount;
+		takenAt = _takenAt;
+	}
+	
+	/**
+	 * @return The highest unacknowledged alarm level across all 16 zones. Use {@link AlarmStatus} to decode the meaning of this value.
+	 */
+	public int getMaxAlarm() {
+		return maxAlarm;
+	}
+	
+	/**
+	 * @return The number of zones with alarms active. This will be a number between 0 and 16.
+	 */
+	public int getActiveAlarmCount() {
+		return activeAlarmCount;
+	}
+	
+	/**
+	 * @return The number of zones with alarms that have been acknowledged. This will be a number between 0 and 16.
+	 */
+	public int getAcknowledgedAlarmCount() {
+		return acknowledgedAlarmCount;
+	}
+	
+	/**
+	 * @return The time the registers were read from the device.
+	 */
+	public Instant getTakenAt() {
+		return takenAt;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof AlarmSummary)) {
+			return false;
+		}
+		AlarmSummary other = (AlarmSummary) obj;
+		return maxAlarm == other.maxAlarm && activeAlarmCount == other.activeAlarmCount && acknowledgedAlarmCount == other.acknowledgedAlarmCount;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (maxAlarm * 31 + activeAlarmCount) * 31 + acknowledgedAlarmCount;
+	}
+	
+	@Override
+	public String toString() {
+		return "Max Alarm: " + maxAlarm + ", Active Alarms: " + activeAlarmCount + ", Acknowledged Alarms: " + acknowledgedAlarmCount;
+	}
+	
+}
@@ -0,0 +1,37 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * Receives the alarm changes found by an {@link AlarmWatcher}.
+ * @author Justin Brubaker
+ *
+ */
+public interface AlarmWatchListener {
+
+	/**
+	 * Called as soon as the alarm summary registers change. The zones have not been read yet.
+	 * @param device The device that was read.
+	 * @param previous The summary before the change, or null for the first summary read by the watcher.
+	 * @param current The new summary.
+	 */
+	public void onAlarmSummaryChanged(MultiZoneDevice device, AlarmSummary previous, AlarmSummary current);
+	
+	/**
+	 * Called when the zones have been read after a change.
+	 * @param device The device that was read.
+	 * @param summary The latest summary when the zones were read.
+	 * @param zones The status of every zone. The buffer is reused by the watcher, so it is only valid until this method returns.
+	 */
+	public default void onZonesRead(MultiZoneDevice device, AlarmSummary summary, ZoneStatusBuffer zones) {
+		
+	}
+	
+	/**
+	 * Called when a read fails. The watcher keeps watching.
+	 * @param device The device that was read.
+	 * @param error The reason the read failed.
+	 */
+	public default void onWatchFailed(MultiZoneDevice device, Throwable error) {
+		
+	}
+	
+}
@@ -0,0 +1,182 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the alarm summary registers (2037-2039) of a device and reads the zones only when the summary changes.
+ * 
+ * A summary read is a single three register transaction at alarm priority, so it can be repeated every fraction of a second without using much of the bus.
+ * Listeners are told about a change as soon as the summary read finds it. The zone read that follows is limited by {@link MultiZoneDevice#getZonePollInterval()} like any other zone status read (Manual B.3.3.),
+ * and the summary keeps being read while it waits. Changes found while a zone read is waiting are covered by a single extra zone read.
+ * Listeners are called one at a time, in order, on the default {@link CompletableFuture} async executor.
+ * An exception thrown by a listener is handed to the thread's uncaught exception handler and the watcher keeps watching.
+ * @author Justin Brubaker
+ *
+ */
+public class AlarmWatcher {
+
+	private final MultiZoneDevice device;
+	private final CopyOnWriteArrayList<AlarmWatchListener> listeners = new CopyOnWriteArrayList<AlarmWatchListener>();
+	private final ZoneStatusBuffer zones = new ZoneStatusBuffer();
+	private volatile Duration summaryInterval = Duration.ofMillis(500);
+	private volatile AlarmSummary latestSummary;
+	private boolean running = false;
+	private long watchLoop = 0;
+	private CompletableFuture<AlarmSummary> currentSummaryRead;
+	private CompletableFuture<ZoneStatusBuffer> currentZoneRead;
+	private boolean zoneReadPending = false;
+	
+	public AlarmWatcher(MultiZoneDevice _device) {
+		super();
+		device = _device;
+	}
+	
+	public MultiZoneDevice getDevice() {
+		return device;
+	}
+	
+	public void addListener(AlarmWatchListener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener(AlarmWatchListener listener) {
+		listeners.remove(listener);
+	}
+	
+	public Duration getSummaryInterval() {
+		return summaryInterval;
+	}
+	
+	/**
+	 * Sets the delay between the end of one summary read and the start of the next. The default is 500 milliseconds.
+	 * @param _summaryInterval
+	 */
+	public void setSummaryInterval(Duration _summaryInterval) {
+		summaryInterval = _summaryInterval;
+	}
+	
+	/**
+	 * @return The summary from the last successful read, or null if there has not been one.
+	 */
+	public AlarmSummary getLatestSummary() {
+		return latestSummary;
+	}
+	
+	public synchronized boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Starts watching. The first summary always counts as a change, so the zones are read once at the start. This method does not block.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		watchLoop++;
+		latestSummary = null;
+		readSummary(watchLoop);
+	}
+	
+	/**
+	 * Stops watching. Reads that are waiting in the bus queue are cancelled.
+	 */
+	public synchronized void stop() {
+		running = false;
+		zoneReadPending = false;
+		if (currentSummaryRead != null) {
+			currentSummaryRead.cancel(false);
+			currentSummaryRead = null;
+		}
+		if (currentZoneRead != null) {
+			currentZoneRead.cancel(false);
+			currentZoneRead = null;
+		}
+	}
+	
+	private synchronized void readSummary(long loop) {
+		// A read that finishes after stop() and start() must not start a second loop.
+		if (!running || loop != watchLoop) {
+			return;
+		}
+		
+		CompletableFuture<AlarmSummary> read = device.getAlarmSummaryAsync();
+		currentSummaryRead = read;
+		read.whenCompleteAsync((summary, error) -> {
+			try {
+				if (summary != null) {
+					AlarmSummary previous = latestSummary;
+					latestSummary = summary;
+					if (!summary.equals(previous)) {
+						for (AlarmWatchListener listener : listeners) {
+							try {
+								listener.onAlarmSummaryChanged(device, previous, summary);
+							} catch (RuntimeException e) {
+								ListenerErrors.report(e);
+							}
+						}
+						readZones(loop);
+					}
+				} else if (!read.isCancelled()) {
+					notifyFailed(error);
+				}
+			} finally {
+				CompletableFuture.delayedExecutor(summaryInterval.toMillis(), TimeUnit.MILLISECONDS).execute(() -> readSummary(loop));
+			}
+		});
+	}
+	
+	private synchronized void readZones(long loop) {
+		if (!running || loop != watchLoop) {
+			return;
+		}
+		if (currentZoneRead != null) {
+			// The zone read that is waiting may have been queued before this change.
+			zoneReadPending = true;
+			return;
+		}
+		
+		CompletableFuture<ZoneStatusBuffer> read = device.readAllZonesIntoAsync(zones);
+		currentZoneRead = read;
+		read.whenCompleteAsync((buffer, error) -> {
+			try {
+				if (buffer != null) {
+					for (AlarmWatchListener listener : listeners) {
+						try {
+							listener.onZonesRead(device, latestSummary, buffer);
+						} catch (RuntimeException e) {
+							ListenerErrors.report(e);
+						}
+					}
+				} else if (!read.isCancelled()) {
+					notifyFailed(error);
+				}
+			} finally {
+				synchronized (this) {
+					if (currentZoneRead == read) {
+						currentZoneRead = null;
+					}
+					if (zoneReadPending) {
+						zoneReadPending = false;
+						readZones(loop);
+					}
+				}
+			}
+		});
+	}
+	
+	private void notifyFailed(Throwable error) {
+		for (AlarmWatchListener listener : listeners) {
+			try {
+				listener.onWatchFailed(device, error);
+			} catch (RuntimeException e) {
+				ListenerErrors.report(e);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,29 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * Receives each block of a {@link MultiZoneDevice#getDetailAsync(BlockListener)} read as soon as it has been decoded, before the next block is requested.
+ * These methods are called on the bus worker thread and should return quickly.
+ * An exception thrown by a listener is reported to the worker thread's uncaught exception handler, and the read carries on.
+ * @author Justin Brubaker
+ *
+ */
+public interface BlockListener {
+
+	/**
+	 * Called once the detail block (2000-2054) has been read.
+	 * @param snapshot
+	 */
+	public default void onDetailBlock(DeviceSnapshot snapshot) {
+		
+	}
+	
+	/**
+	 * Called once the setup block (3000-3096) has been read.
+	 * @param configuration The setpoints.
+	 * @param acknowledgeStates Registers 3080-3096.
+	 */
+	public default void onSetupBlock(DeviceConfiguration configuration, int[] acknowledgeStates) {
+		
+	}
+	
+}
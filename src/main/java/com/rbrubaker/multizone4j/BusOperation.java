@@ -0,0 +1,25 @@
+package com.rbrubaker.multizone4j;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+
+/**
+ * A unit of work that is run on a {@link ModbusBus}.
+ * Everything done inside a single operation is sent on the bus back to back without any other device's requests in between.
+ * @author Justin Brubaker
+ *
+ * @param <T> The type of the result.
+ */
+@FunctionalInterface
+public interface BusOperation<T> {
+
+	/**
+	 * This method is called on the bus worker thread once the operation reaches the front of the queue.
+	 * @param transport The connected transport that owns the bus.
+	 * @return The result of the operation.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public T execute(ModbusTransport transport) throws ModbusException, Exception;
+	
+}
@@ -0,0 +1,28 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * The order in which a {@link ModbusBus} runs queued requests.
+ * Requests with a higher priority are always run first. Requests with the same priority are run in the order they were submitted.
+ * @author Justin Brubaker
+ *
+ */
+public enum BusPriority {
+
+	/**
+	 * Alarm registers. These are run before anything else so that alarms are seen as soon as possible.
+	 */
+	ALARM,
+	/**
+	 * Zone status registers. These are also limited to one read per device per zone poll interval. (Manual B.3.3.)
+	 */
+	ZONE_STATUS,
+	/**
+	 * General device status registers.
+	 */
+	STATUS,
+	/**
+	 * Diagnostic and setpoint registers. These are only run when nothing else is waiting.
+	 */
+	BACKGROUND;
+	
+}
@@ -0,0 +1,50 @@
+package com.rbrubaker.multizone4j;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+
+/**
+ * A queued {@link BusOperation} and the future its result is delivered through.
+ * @author Justin Brubaker
+ *
+ * @param <T> The type of the result.
+ */
+class BusRequest<T> {
+
+	final BusOperation<T> operation;
+	final BusPriority priority;
+	/**
+	 * Requests with the same non null rate limit key are run no closer together than {@link #minIntervalNanos}.
+	 */
+	final Object rateLimitKey;
+	final long minIntervalNanos;
+	final CompletableFuture<T> result = new CompletableFuture<T>();
+	long sequence;
+	
+	BusRequest(BusOperation<T> _operation, BusPriority _priority, Object _rateLimitKey, long _minIntervalNanos) {
+		operation = _operation;
+		priority = _priority;
+		rateLimitKey = _rateLimitKey;
+		minIntervalNanos = _minIntervalNanos;
+	}
+	
+	/**
+	 * @return true if this request should be run before the other request.
+	 */
+	boolean isBefore(BusRequest<?> other) {
+		if (priority != other.priority) {
+			return priority.ordinal() < other.priority.ordinal();
+		}
+		return sequence < other.sequence;
+	}
+	
+	void run(ModbusTransport transport) {
+		try {
+			result.complete(operation.execute(transport));
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		}
+	}
+	
+}
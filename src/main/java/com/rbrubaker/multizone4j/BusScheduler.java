@@ -0,0 +1,87 @@
+package com.rbrubaker.multizone4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which queued request a {@link ModbusBus} runs next.
+ * The highest priority request that is allowed to run is always chosen.
+ * A rate limited request that is not allowed to run yet does not hold up the requests behind it, so the bus never sits idle while something could be sent.
+ * @author Justin Brubaker
+ *
+ */
+class BusScheduler {
+
+	private final ArrayList<BusRequest<?>> pending = new ArrayList<BusRequest<?>>();
+	private final HashMap<Object, Long> lastRunAt = new HashMap<Object, Long>();
+	private long nextSequence = 0;
+	
+	synchronized void add(BusRequest<?> request) {
+		request.sequence = nextSequence++;
+		pending.add(request);
+		notifyAll();
+	}
+	
+	/**
+	 * Blocks until a request is allowed to run and removes it from the queue.
+	 * @return The request to run next.
+	 * @throws InterruptedException
+	 */
+	synchronized BusRequest<?> take() throws InterruptedException {
+		while (true) {
+			long now = System.nanoTime();
+			BusRequest<?> next = null;
+			long wakeAt = Long.MAX_VALUE;
+			
+			pending.removeIf(request -> request.result.isDone());
+			
+			for (BusRequest<?> request : pending) {
+				Long last = request.rateLimitKey == null ? null : lastRunAt.get(request.rateLimitKey);
+				if (last == null || now - last >= request.minIntervalNanos) {
+					if (next == null || request.isBefore(next)) {
+						next = request;
+					}
+				} else {
+					long allowedAt = last + request.minIntervalNanos;
+					if (wakeAt == Long.MAX_VALUE || allowedAt - wakeAt < 0) {
+						wakeAt = allowedAt;
+					}
+				}
+			}
+			
+			if (next != null) {
+				pending.remove(next);
+				if (next.rateLimitKey != null) {
+					lastRunAt.put(next.rateLimitKey, now);
+				}
+				return next;
+			}
+			
+			if (wakeAt == Long.MAX_VALUE) {
+				wait();
+			} else {
+				TimeUnit.NANOSECONDS.timedWait(this, wakeAt - now);
+			}
+		}
+	}
+	
+	/**
+	 * Forgets when a rate limit key last ran, such as when its device is released.
+	 * @param rateLimitKey
+	 */
+	synchronized void forget(Object rateLimitKey) {
+		lastRunAt.remove(rateLimitKey);
+	}
+	
+	/**
+	 * Removes every queued request.
+	 * @return The requests that were removed.
+	 */
+	synchronized ArrayList<BusRequest<?>> drain() {
+		ArrayList<BusRequest<?>> drained = new ArrayList<BusRequest<?>>(pending);
+		pending.clear();
+		return drained;
+	}
+	
+}
@@ -0,0 +1,97 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last {@link DeviceConfiguration} read from a device until it is older than the time to live.
+ * When the cache is empty every caller waits on the same load, so concurrent misses only cost one bus transaction.
+ * @author Justin Brubaker
+ *
+ */
+class ConfigurationCache {
+
+	private final Supplier<CompletableFuture<DeviceConfiguration>> loader;
+	private Duration timeToLive;
+	private DeviceConfiguration cached;
+	private CompletableFuture<DeviceConfiguration> loading;
+	private long generation = 0;
+	
+	ConfigurationCache(Supplier<CompletableFuture<DeviceConfiguration>> _loader, Duration _timeToLive) {
+		loader = _loader;
+		timeToLive = _timeToLive;
+	}
+	
+	synchronized Duration getTimeToLive() {
+		return timeToLive;
+	}
+	
+	synchronized void setTimeToLive(Duration _timeToLive) {
+		timeToLive = _timeToLive;
+	}
+	
+	/**
+	 * @return The cached configuration, or null if there is none or it has expired.
+	 */
+	synchronized DeviceConfiguration getIfFresh() {
+		if (cached != null && cached.getLoadedAt().plus(timeToLive).isAfter(Instant.now())) {
+			return cached;
+		}
+		return null;
+	}
+	
+	/**
+	 * @return A future for the configuration. It is already complete if the cached configuration is still fresh.
+	 */
+	synchronized CompletableFuture<DeviceConfiguration> get() {
+		DeviceConfiguration fresh = getIfFresh();
+		if (fresh != null) {
+			return CompletableFuture.completedFuture(fresh);
+		}
+		
+		CompletableFuture<DeviceConfiguration> load = loading;
+		if (load == null) {
+			long loadGeneration = generation;
+			CompletableFuture<DeviceConfiguration> newLoad = loader.get();
+			load = newLoad;
+			loading = newLoad;
+			// A load that is already complete runs finishLoad on this thread and clears loading, so the local variable is used below.
+			newLoad.whenComplete((configuration, error) -> finishLoad(newLoad, loadGeneration, configuration));
+		}
+		
+		// Each caller gets its own copy so that one caller cancelling does not cancel the shared load.
+		return load.copy();
+	}
+	
+	/**
+	 * Stores a configuration that was read some other way, such as in a block read.
+	 * @param configuration
+	 */
+	synchronized void put(DeviceConfiguration configuration) {
+		if (cached == null || configuration.getLoadedAt().isAfter(cached.getLoadedAt())) {
+			cached = configuration;
+		}
+	}
+	
+	/**
+	 * Forgets the cached configuration. The next call to {@link #get()} reads the device again.
+	 * A load that is already running is not stored when it finishes.
+	 */
+	synchronized void invalidate() {
+		generation++;
+		cached = null;
+		loading = null;
+	}
+	
+	private synchronized void finishLoad(CompletableFuture<DeviceConfiguration> load, long loadGeneration, DeviceConfiguration configuration) {
+		if (loading == load) {
+			loading = null;
+		}
+		if (configuration != null && loadGeneration == generation) {
+			cached = configuration;
+		}
+	}
+	
+}
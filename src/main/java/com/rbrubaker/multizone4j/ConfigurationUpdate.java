@@ -0,0 +1,127 @@
+package com.rbrubaker.multizone4j;
+
+import com.rbrubaker.multizone4j.reference.RefrigerantType;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * The Manual Section B.4.2 setpoints that should be written to a device. Setpoints that are not set are left as they are.
+ * Use {@link MultiZoneDevice#writeConfiguration(ConfigurationUpdate)} to apply it.
+ * The same update can be applied to any number of devices.
+ * @author Justin Brubaker
+ *
+ */
+public class ConfigurationUpdate {
+
+	private final int[] values = new int[DeviceConfiguration.REGISTER_COUNT];
+	private final boolean[] set = new boolean[DeviceConfiguration.REGISTER_COUNT];
+	
+	public ConfigurationUpdate() {
+		super();
+	}
+	
+	/**
+	 * Creates an update that sets every setpoint to the values of an existing configuration, such as one read from a reference unit.
+	 * @param desired
+	 * @return The update.
+	 */
+	public static ConfigurationUpdate of(DeviceConfiguration desired) {
+		ConfigurationUpdate update = new ConfigurationUpdate();
+		for (int i = 0; i < DeviceConfiguration.REGISTER_COUNT; i++) {
+			update.setRegister(DeviceConfiguration.FIRST_REGISTER + i, desired.getRegister(DeviceConfiguration.FIRST_REGISTER + i));
+		}
+		return update;
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param refrigerantType Use {@link RefrigerantType} for the refrigerant type codes.
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setRefrigerantType(int zoneNumber, int refrigerantType) throws IllegalArgumentException {
+		return set(MultiZoneRegister.REFRIGERANT_TYPE, zoneNumber, refrigerantType);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param ppm
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setLeakLevelSetpoint(int zoneNumber, int ppm) throws IllegalArgumentException {
+		return set(MultiZoneRegister.LEAK_LEVEL_SETPOINT, zoneNumber, ppm);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param ppm
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setSpillLevelSetpoint(int zoneNumber, int ppm) throws IllegalArgumentException {
+		return set(MultiZoneRegister.SPILL_LEVEL_SETPOINT, zoneNumber, ppm);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param ppm
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setEvacuationLevelSetpoint(int zoneNumber, int ppm) throws IllegalArgumentException {
+		return set(MultiZoneRegister.EVACUATION_LEVEL_SETPOINT, zoneNumber, ppm);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param distance The sample distance in feet.
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setSampleDistanceSetpoint(int zoneNumber, int distance) throws IllegalArgumentException {
+		return set(MultiZoneRegister.SAMPLE_DISTANCE_SETPOINT, zoneNumber, distance);
+	}
+	
+	/**
+	 * @param registerNumber A register number between 3000 and 3079.
+	 * @param value The raw value.
+	 * @return This update.
+	 * @throws IllegalArgumentException
+	 */
+	public ConfigurationUpdate setRegister(int registerNumber, int value) throws IllegalArgumentException {
+		if (registerNumber < DeviceConfiguration.FIRST_REGISTER || registerNumber >= DeviceConfiguration.FIRST_REGISTER + DeviceConfiguration.REGISTER_COUNT) {
+			throw new IllegalArgumentException("The register number must be between 3000-3079.");
+		}
+		if (value < 0 || value > 0xFFFF) {
+			throw new IllegalArgumentException("A register value must be between 0-65535.");
+		}
+		values[registerNumber - DeviceConfiguration.FIRST_REGISTER] = value;
+		set[registerNumber - DeviceConfiguration.FIRST_REGISTER] = true;
+		return this;
+	}
+	
+	/**
+	 * @param registerNumber A register number between 3000 and 3079.
+	 * @return true if the update sets the register.
+	 */
+	public boolean isSet(int registerNumber) {
+		int index = registerNumber - DeviceConfiguration.FIRST_REGISTER;
+		return index >= 0 && index < DeviceConfiguration.REGISTER_COUNT && set[index];
+	}
+	
+	/**
+	 * @param registerNumber A register number between 3000 and 3079.
+	 * @return The value the register is set to. Only meaningful if {@link #isSet(int)} is true.
+	 */
+	public int getRegister(int registerNumber) {
+		return values[registerNumber - DeviceConfiguration.FIRST_REGISTER];
+	}
+	
+	private ConfigurationUpdate set(MultiZoneRegister register, int zoneNumber, int value) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		return setRegister(register.getAddress(zoneNumber), value);
+	}
+	
+}
@@ -0,0 +1,40 @@
+package com.rbrubaker.multizone4j;
+
+import java.util.Arrays;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+
+/**
+ * Thrown when the setpoints read back after a write do not match the values that were written.
+ * This usually means the device rejected a value, such as a setpoint outside its allowed range.
+ * @author Justin Brubaker
+ *
+ */
+public class ConfigurationVerificationException extends ModbusException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final transient ConfigurationWriteResult result;
+	private final int[] mismatchedRegisters;
+	
+	ConfigurationVerificationException(ConfigurationWriteResult _result, int[] _mismatchedRegisters) {
+		super("The device did not keep the values written to registers " + Arrays.toString(_mismatchedRegisters) + ".");
+		result = _result;
+		mismatchedRegisters = _mismatchedRegisters.clone();
+	}
+	
+	/**
+	 * @return The writes that were sent and the values that were read back.
+	 */
+	public ConfigurationWriteResult getResult() {
+		return result;
+	}
+	
+	/**
+	 * @return The register numbers that did not read back the value that was written.
+	 */
+	public int[] getMismatchedRegisters() {
+		return mismatchedRegisters.clone();
+	}
+	
+}
@@ -0,0 +1,68 @@
+package com.rbrubaker.multizone4j;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.rbrubaker.multizone4j.registers.RegisterBlock;
+
+/**
+ * What {@link MultiZoneDevice#writeConfiguration(ConfigurationUpdate)} changed on a device. This class is immutable.
+ * @author Justin Brubaker
+ *
+ */
+public class ConfigurationWriteResult {
+
+	private final DeviceConfiguration before;
+	private final DeviceConfiguration after;
+	private final List<RegisterBlock> writes;
+	private final int changedRegisters;
+	
+	ConfigurationWriteResult(DeviceConfiguration _before, DeviceConfiguration _after, List<RegisterBlock> _writes, int _changedRegisters) {
+		super();
+		before = _before;
+		after = _after;
+		writes = Collections.unmodifiableList(_writes);
+		changedRegisters = _changedRegisters;
+	}
+	
+	/**
+	 * @return The setpoints read from the device before anything was written.
+	 */
+	public DeviceConfiguration getBefore() {
+		return before;
+	}
+	
+	/**
+	 * @return The setpoints read back from the device after the writes.
+	 */
+	public DeviceConfiguration getAfter() {
+		return after;
+	}
+	
+	/**
+	 * @return The write requests that were sent. The function code of each block is 06 or 16.
+	 */
+	public List<RegisterBlock> getWrites() {
+		return writes;
+	}
+	
+	/**
+	 * @return The number of registers whose value was changed.
+	 */
+	public int getChangedRegisters() {
+		return changedRegisters;
+	}
+	
+	/**
+	 * @return true if the device already matched the update and nothing was written.
+	 */
+	public boolean isUnchanged() {
+		return changedRegisters == 0;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ConfigurationWriteResult[%d registers changed in %d writes: %s]", changedRegisters, writes.size(), writes);
+	}
+	
+}
@@ -16,6 +16,13 @@ public class CurrentZoneStatus {
 		this.alarmStatus = alarmStatus;
 		updatedAt = Instant.now();
 	}
+	
+	public CurrentZoneStatus(int ppm, int alarmStatus, Instant updatedAt) {
+		super();
+		this.ppm = ppm;
+		this.alarmStatus = alarmStatus;
+		this.updatedAt = updatedAt;
+	}
 
 	public int getPPM() {
 		return ppm;
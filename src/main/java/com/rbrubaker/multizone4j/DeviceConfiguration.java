@@ -0,0 +1,114 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.reference.RefrigerantType;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * This class is an immutable copy of the Manual Section B.4.2 setpoint registers (3000-3079) of a Bacharach MultiZone device.
+ * These values are set up when the device is commissioned and almost never change, so {@link MultiZoneDevice} caches them.
+ * See {@link MultiZoneDevice#getConfiguration()}.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceConfiguration {
+
+	/**
+	 * The first register included in a configuration.
+	 */
+	public static final int FIRST_REGISTER = 3000;
+	/**
+	 * The number of registers included in a configuration. (3000-3079)
+	 */
+	public static final int REGISTER_COUNT = 80;
+	
+	private final int[] registers;
+	private final Instant loadedAt;
+	
+	/**
+	 * @param _registers The raw values of registers 3000-3079. The array is copied.
+	 * @param _loadedAt The time the registers were read from the device.
+	 */
+	public DeviceConfiguration(int[] _registers, Instant _loadedAt) {
+		super();
+		if (_registers.length != REGISTER_COUNT) {
+			throw new IllegalArgumentException("A configuration requires exactly " + REGISTER_COUNT + " registers (3000-3079).");
+		}
+		registers = _registers.clone();
+		loadedAt = _loadedAt;
+	}
+	
+	/**
+	 * @param registerNumber A register number between 3000 and 3079.
+	 * @return The raw value of the given register.
+	 */
+	public int getRegister(int registerNumber) throws IllegalArgumentException {
+		if (registerNumber < FIRST_REGISTER || registerNumber >= FIRST_REGISTER + REGISTER_COUNT) {
+			throw new IllegalArgumentException("The register number must be between 3000-3079.");
+		}
+		return registers[registerNumber - FIRST_REGISTER];
+	}
+	
+	/**
+	 * @return A copy of the raw values of registers 3000-3079.
+	 */
+	public int[] getRegisters() {
+		return registers.clone();
+	}
+	
+	/**
+	 * @return The time the configuration was read from the device.
+	 */
+	public Instant getLoadedAt() {
+		return loadedAt;
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return An integer representing the refrigerant type. Use {@link RefrigerantType} to decode the refrigerant type.
+	 */
+	public int getRefrigerantType(int zoneNumber) throws IllegalArgumentException {
+		return getZoneRegister(MultiZoneRegister.REFRIGERANT_TYPE, zoneNumber);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The leak level setpoint for the given zone.
+	 */
+	public int getLeakLevelSetpoint(int zoneNumber) throws IllegalArgumentException {
+		return getZoneRegister(MultiZoneRegister.LEAK_LEVEL_SETPOINT, zoneNumber);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The spill level setpoint for the given zone.
+	 */
+	public int getSpillLevelSetpoint(int zoneNumber) throws IllegalArgumentException {
+		return getZoneRegister(MultiZoneRegister.SPILL_LEVEL_SETPOINT, zoneNumber);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The evacuation level setpoint for the given zone.
+	 */
+	public int getEvacuationLevelSetpoint(int zoneNumber) throws IllegalArgumentException {
+		return getZoneRegister(MultiZoneRegister.EVACUATION_LEVEL_SETPOINT, zoneNumber);
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The sample tube distance setpoint.
+	 */
+	public int getSampleDistanceSetpoint(int zoneNumber) throws IllegalArgumentException {
+		return getZoneRegister(MultiZoneRegister.SAMPLE_DISTANCE_SETPOINT, zoneNumber);
+	}
+	
+	private int getZoneRegister(MultiZoneRegister register, int zoneNumber) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		return registers[register.getAddress(zoneNumber) - FIRST_REGISTER];
+	}
+	
+}
@@ -0,0 +1,86 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+import com.rbrubaker.multizone4j.registers.RegisterBlock;
+
+/**
+ * Everything that can be read from a Bacharach MultiZone device, read in two block transactions.
+ * The detail block is the Manual Section B.4.1 registers (2000-2054) and the setup block is the Manual Section B.4.2 registers (3000-3096).
+ * This class is immutable.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceDetail {
+
+	/**
+	 * Registers 2000-2054 read with function code 03.
+	 */
+	public static final RegisterBlock DETAIL_BLOCK = new RegisterBlock(Modbus.READ_MULTIPLE_REGISTERS, DeviceSnapshot.FIRST_REGISTER, DeviceSnapshot.REGISTER_COUNT);
+	/**
+	 * Registers 3000-3096 read with function code 04.
+	 */
+	public static final RegisterBlock SETUP_BLOCK = new RegisterBlock(Modbus.READ_INPUT_REGISTERS, DeviceConfiguration.FIRST_REGISTER, 97);
+	
+	private final DeviceSnapshot snapshot;
+	private final DeviceConfiguration configuration;
+	private final int[] acknowledgeStates;
+	
+	/**
+	 * @param _snapshot The decoded detail block.
+	 * @param _configuration The decoded setpoints of the setup block.
+	 * @param _acknowledgeStates Registers 3080-3096 of the setup block.
+	 */
+	public DeviceDetail(DeviceSnapshot _snapshot, DeviceConfiguration _configuration, int[] _acknowledgeStates) {
+		super();
+		snapshot = _snapshot;
+		configuration = _configuration;
+		acknowledgeStates = Arrays.copyOf(_acknowledgeStates, 17);
+	}
+	
+	/**
+	 * @return The Manual Section B.4.1 values.
+	 */
+	public DeviceSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * @return The Manual Section B.4.2 setpoints.
+	 */
+	public DeviceConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * @return When the detail block was read.
+	 */
+	public Instant getTakenAt() {
+		return snapshot.getTakenAt();
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The alarm acknowledge state for the given zone. 1=Acknowledged, 0=Unacknowledged
+	 * @throws IllegalArgumentException
+	 */
+	public int getAlarmAcknowledgeState(int zoneNumber) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		return acknowledgeStates[MultiZoneRegister.ALARM_ACKNOWLEDGE_STATE.getAddress(zoneNumber) - MultiZoneRegister.ALARM_ACKNOWLEDGE_STATE.getAddress()];
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * @return The alarm acknowledge state for all zones.
+	 */
+	public int getAllAlarmAcknowledgeState() {
+		return acknowledgeStates[16];
+	}
+	
+}
@@ -0,0 +1,133 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a {@link DeviceSnapshot} from a device over and over and hands each one to the registered {@link SnapshotListener}s.
+ * The poller does not use a thread of its own. The reads are queued on the device's {@link ModbusBus}, so the polls are never closer together than {@link MultiZoneDevice#getZonePollInterval()}. (Manual B.3.3.)
+ * Listeners are called one poll at a time, in order, on the default {@link CompletableFuture} async executor.
+ * An exception thrown by a listener is handed to the thread's uncaught exception handler and polling carries on.
+ * @author Justin Brubaker
+ *
+ */
+public class DevicePoller {
+
+	private final MultiZoneDevice device;
+	private final CopyOnWriteArrayList<SnapshotListener> listeners = new CopyOnWriteArrayList<SnapshotListener>();
+	private volatile Duration pollDelay = Duration.ZERO;
+	private volatile DeviceSnapshot latestSnapshot;
+	private boolean running = false;
+	private long pollLoop = 0;
+	private CompletableFuture<DeviceSnapshot> current;
+	
+	public DevicePoller(MultiZoneDevice _device) {
+		super();
+		device = _device;
+	}
+	
+	public MultiZoneDevice getDevice() {
+		return device;
+	}
+	
+	public void addListener(SnapshotListener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener(SnapshotListener listener) {
+		listeners.remove(listener);
+	}
+	
+	public Duration getPollDelay() {
+		return pollDelay;
+	}
+	
+	/**
+	 * Sets an extra delay between the end of one poll and the start of the next.
+	 * With the default of {@link Duration#ZERO} the device is polled as often as its zone poll interval allows.
+	 * @param _pollDelay
+	 */
+	public void setPollDelay(Duration _pollDelay) {
+		pollDelay = _pollDelay;
+	}
+	
+	/**
+	 * @return The snapshot from the last successful poll, or null if there has not been one.
+	 */
+	public DeviceSnapshot getLatestSnapshot() {
+		return latestSnapshot;
+	}
+	
+	public synchronized boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Starts polling. This method does not block.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		pollLoop++;
+		poll(pollLoop);
+	}
+	
+	/**
+	 * Stops polling. A poll that is waiting in the bus queue is cancelled.
+	 */
+	public synchronized void stop() {
+		running = false;
+		if (current != null) {
+			current.cancel(false);
+			current = null;
+		}
+	}
+	
+	private synchronized void poll(long loop) {
+		// A poll that finishes after stop() and start() must not start a second loop.
+		if (!running || loop != pollLoop) {
+			return;
+		}
+		
+		CompletableFuture<DeviceSnapshot> poll = device.pollSnapshotAsync();
+		current = poll;
+		poll.whenCompleteAsync((snapshot, error) -> {
+			try {
+				if (snapshot != null) {
+					latestSnapshot = snapshot;
+					for (SnapshotListener listener : listeners) {
+						try {
+							listener.onSnapshot(device, snapshot);
+						} catch (RuntimeException e) {
+							ListenerErrors.report(e);
+						}
+					}
+				} else if (!poll.isCancelled()) {
+					for (SnapshotListener listener : listeners) {
+						try {
+							listener.onPollFailed(device, error);
+						} catch (RuntimeException e) {
+							ListenerErrors.report(e);
+						}
+					}
+				}
+			} finally {
+				scheduleNextPoll(loop);
+			}
+		});
+	}
+	
+	private void scheduleNextPoll(long loop) {
+		Duration delay = pollDelay;
+		if (delay.isZero()) {
+			poll(loop);
+		} else {
+			CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> poll(loop));
+		}
+	}
+	
+}
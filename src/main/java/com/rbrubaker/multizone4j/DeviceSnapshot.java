@@ -0,0 +1,256 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import com.rbrubaker.multizone4j.reference.AlarmStatus;
+import com.rbrubaker.multizone4j.reference.CurrentState;
+import com.rbrubaker.multizone4j.reference.OperatingMode;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * This class is an immutable copy of the Manual Section B.4.1 registers (2000-2054) of a Bacharach MultiZone device.
+ * All of the values in a snapshot were read in a single modbus transaction, so they all share the same {@link #getTakenAt()} time.
+ * Use {@link MultiZoneDevice#getSnapshot()} to read a snapshot from a device.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceSnapshot {
+
+	/**
+	 * The first register included in a snapshot.
+	 */
+	public static final int FIRST_REGISTER = 2000;
+	/**
+	 * The number of registers included in a snapshot. (2000-2054)
+	 */
+	public static final int REGISTER_COUNT = 55;
+	
+	private final int[] registers;
+	private final Instant takenAt;
+	
+	/**
+	 * @param _registers The raw values of registers 2000-2054. The array is copied.
+	 * @param _takenAt The time the registers were read from the device.
+	 */
+	public DeviceSnapshot(int[] _registers, Instant _takenAt) {
+		super();
+		if (_registers.length != REGISTER_COUNT) {
+			throw new IllegalArgumentException("A snapshot requires exactly " + REGISTER_COUNT + " registers (2000-2054).");
+		}
+		registers = _registers.clone();
+		takenAt = _takenAt;
+	}
+	
+	/**
+	 * @param registerNumber A register number between 2000 and 2054.
+	 * @return The raw value of the given register at the time of the snapshot.
+	 */
+	public int getRegister(int registerNumber) throws IllegalArgumentException {
+		if (registerNumber < FIRST_REGISTER || registerNumber >= FIRST_REGISTER + REGISTER_COUNT) {
+			throw new IllegalArgumentException("The register number must be between 2000-2054.");
+		}
+		return registers[registerNumber - FIRST_REGISTER];
+	}
+	
+	/**
+	 * @return A copy of the raw values of registers 2000-2054.
+	 */
+	public int[] getRegisters() {
+		return registers.clone();
+	}
+	
+	/**
+	 * @return The time the snapshot was read from the device.
+	 */
+	public Instant getTakenAt() {
+		return takenAt;
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The ppm and alarm status of the given zone.
+	 */
+	public CurrentZoneStatus getCurrentZoneStatus(int zoneNumber) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		return new CurrentZoneStatus(getRegister(MultiZoneRegister.ZONE_PPM.getAddress(zoneNumber)), getRegister(MultiZoneRegister.ZONE_ALARM_STATUS.getAddress(zoneNumber)), takenAt);
+	}
+	
+	/**
+	 * @return The ppm and alarm status of all 16 zones.
+	 */
+	public ArrayList<CurrentZoneStatus> getAllCurrentZoneStatuses() {
+		ArrayList<CurrentZoneStatus> zones = new ArrayList<CurrentZoneStatus>();
+		for (int i = 0; i < 16; i++) {
+			zones.add(getCurrentZoneStatus(i));
+		}
+		return zones;
+	}
+	
+	/**
+	 * @return The fault code on the Multi-Zone device. No faults is a value of 0000. See Manual Section 4.6 for information on decoding system faults.
+	 */
+	public int getFaultCode() {
+		return getValue(MultiZoneRegister.FAULT_CODE);
+	}
+	
+	/**
+	 * @return The current operating mode of the Multi-Zone device. Use {@link OperatingMode} to decode the meaning of this value.
+	 */
+	public int getCurrentOperatingMode() {
+		return getValue(MultiZoneRegister.OPERATING_MODE);
+	}
+	
+	/**
+	 * @return The current state of the Multi-Zone device. Use {@link CurrentState} to decode the meaning of this value.
+	 */
+	public int getCurrentState() {
+		return getValue(MultiZoneRegister.CURRENT_STATE);
+	}
+	
+	/**
+	 * @return The zone that the Multi-Zone device was taking a reading of. This zone number is base 1. So a value of 1 indicates zone 1.
+	 */
+	public int getActiveZone() {
+		return getValue(MultiZoneRegister.ACTIVE_ZONE);
+	}
+	
+	/**
+	 * @return The highest unacknowledged alarm level across all 16 zones. Use {@link AlarmStatus} to decode the meaning of this value.
+	 */
+	public int getMaxAlarm() {
+		return getValue(MultiZoneRegister.MAX_ALARM);
+	}
+	
+	/**
+	 * @return The number of zones with alarms active. This will be a number between 0 and 16.
+	 */
+	public int getActiveAlarmCount() {
+		return getValue(MultiZoneRegister.ACTIVE_ALARM_COUNT);
+	}
+	
+	/**
+	 * @return The number of zones with alarms that have been acknowledged. This will be a number between 0 and 16.
+	 */
+	public int getAcknowledgedAlarmCount() {
+		return getValue(MultiZoneRegister.ACKNOWLEDGED_ALARM_COUNT);
+	}
+	
+	/**
+	 * @return The fault code on the Multi-Zone device. No faults is a value of 0000. See Manual Section 4.5 for information on decoding system faults.
+	 */
+	public int getFaultCodeStatus() {
+		return getValue(MultiZoneRegister.FAULT_CODE_STATUS);
+	}
+	
+	/**
+	 * @return An {@link Optional} containing true or false. If the register is not 0 or 1 the optional will be empty.
+	 */
+	public Optional<Boolean> isAudibleAlarm() {
+		return toOptionalBoolean(getValue(MultiZoneRegister.AUDIBLE_ALARM));
+	}
+	
+	/**
+	 * @return An {@link Optional} containing true or false. If the register is not 0 or 1 the optional will be empty.
+	 */
+	public Optional<Boolean> isSilenced() {
+		return toOptionalBoolean(getValue(MultiZoneRegister.SILENCED));
+	}
+	
+	/**
+	 * @return The zone with the highest concentration of refrigerant.
+	 */
+	public int getHighestConcentrationZone() {
+		return getValue(MultiZoneRegister.HIGHEST_CONCENTRATION_ZONE);
+	}
+	
+	/**
+	 * @return The concentration, in parts per million, in the zone with the highest concentration.
+	 */
+	public int getHighestConcentration() {
+		return getValue(MultiZoneRegister.HIGHEST_CONCENTRATION);
+	}
+	
+	/**
+	 * @return The number of zones installed. According to the manual this can be 4,8,12,16.
+	 */
+	public int getZonesInstalled() {
+		return getValue(MultiZoneRegister.ZONES_INSTALLED);
+	}
+	
+	/**
+	 * @return The manifold pressure.
+	 */
+	public double getManifoldPressure() {
+		return getScaledValue(MultiZoneRegister.MANIFOLD_PRESSURE);
+	}
+	
+	/**
+	 * @return The ambient pressure.
+	 */
+	public double getAmbientPressure() {
+		return getScaledValue(MultiZoneRegister.AMBIENT_PRESSURE);
+	}
+	
+	/**
+	 * @return The vacuum pressure.
+	 */
+	public double getVacuumPressure() {
+		return getScaledValue(MultiZoneRegister.VACUUM_PRESSURE);
+	}
+	
+	/**
+	 * @return The Bench Temperature
+	 */
+	public double getBenchTemp() {
+		return getScaledValue(MultiZoneRegister.BENCH_TEMP);
+	}
+	
+	/**
+	 * @return The Ave Voltage.
+	 */
+	public double getAveVoltage() {
+		return getScaledValue(MultiZoneRegister.AVE_VOLTAGE);
+	}
+	
+	/**
+	 * @return The zero volts
+	 */
+	public double getZeroVolts() {
+		return getScaledValue(MultiZoneRegister.ZERO_VOLTS);
+	}
+	
+	/**
+	 * @return The Ave Au value.
+	 */
+	public double getAveAu() {
+		return getScaledValue(MultiZoneRegister.AVE_AU);
+	}
+	
+	/**
+	 * @return The bench parts per million.
+	 */
+	public int getBenchPpm() {
+		return getValue(MultiZoneRegister.BENCH_PPM);
+	}
+	
+	private int getValue(MultiZoneRegister register) {
+		return getRegister(register.getAddress());
+	}
+	
+	private double getScaledValue(MultiZoneRegister register) {
+		return register.scale(getRegister(register.getAddress()));
+	}
+	
+	private static Optional<Boolean> toOptionalBoolean(int value) {
+		switch (value) {
+			case 0: return Optional.of(false);
+			case 1: return Optional.of(true);
+			default: return Optional.empty();
+		}
+	}
+	
+}
@@ -0,0 +1,17 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * Receives the result of every poll cycle of a {@link MultiZoneFleet}.
+ * @author Justin Brubaker
+ *
+ */
+@FunctionalInterface
+public interface FleetListener {
+
+	/**
+	 * Called once every device in the fleet has been polled, or has failed.
+	 * @param snapshot The result of the cycle.
+	 */
+	public void onFleetSnapshot(FleetSnapshot snapshot);
+	
+}
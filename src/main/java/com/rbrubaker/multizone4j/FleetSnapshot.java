@@ -0,0 +1,81 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The result of one poll cycle of a {@link MultiZoneFleet}. This class is immutable.
+ * Every device in the fleet has either a snapshot or a failure.
+ * @author Justin Brubaker
+ *
+ */
+public class FleetSnapshot {
+
+	private final Instant startedAt;
+	private final Instant completedAt;
+	private final Map<MultiZoneDevice, DeviceSnapshot> snapshots;
+	private final Map<MultiZoneDevice, Throwable> failures;
+	private final Map<ModbusBus, Duration> busCycleTimes;
+	
+	FleetSnapshot(Instant _startedAt, Instant _completedAt, Map<MultiZoneDevice, DeviceSnapshot> _snapshots, Map<MultiZoneDevice, Throwable> _failures,
+			Map<ModbusBus, Duration> _busCycleTimes) {
+		super();
+		startedAt = _startedAt;
+		completedAt = _completedAt;
+		snapshots = Collections.unmodifiableMap(_snapshots);
+		failures = Collections.unmodifiableMap(_failures);
+		busCycleTimes = Collections.unmodifiableMap(_busCycleTimes);
+	}
+	
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+	
+	public Instant getCompletedAt() {
+		return completedAt;
+	}
+	
+	/**
+	 * @return The time the whole cycle took. This is the cycle time of the slowest bus.
+	 */
+	public Duration getCycleTime() {
+		return Duration.between(startedAt, completedAt);
+	}
+	
+	/**
+	 * @return The snapshot of every device that was read successfully, in inventory order.
+	 */
+	public Map<MultiZoneDevice, DeviceSnapshot> getSnapshots() {
+		return snapshots;
+	}
+	
+	/**
+	 * @return The reason each device that could not be read failed, in inventory order.
+	 */
+	public Map<MultiZoneDevice, Throwable> getFailures() {
+		return failures;
+	}
+	
+	/**
+	 * @param device
+	 * @return The snapshot of the device, or null if it failed or is not in the fleet.
+	 */
+	public DeviceSnapshot getSnapshot(MultiZoneDevice device) {
+		return snapshots.get(device);
+	}
+	
+	/**
+	 * @return How long each bus took to poll all of its devices.
+	 */
+	public Map<ModbusBus, Duration> getBusCycleTimes() {
+		return busCycleTimes;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("FleetSnapshot[%d read, %d failed, %d ms]", snapshots.size(), failures.size(), getCycleTime().toMillis());
+	}
+	
+}
@@ -0,0 +1,161 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * Keeps an up to date view of every zone of a device while reading only the zones that have new data.
+ * 
+ * The MultiZone samples one zone at a time, and a zone's ppm only changes when its sample finishes.
+ * Each poll reads the active zone register (2036). When the active zone has moved on, the zones the device finished sampling since the last poll are read and merged into the view.
+ * When it has not moved on, nothing else is read. This means the active zone can be polled every few seconds to see new samples quickly.
+ * The zone reads still wait for the {@link MultiZoneDevice#getZonePollInterval()} limit, so a poll that finds new samples may wait. (Manual B.3.3.)
+ * 
+ * The first poll reads every zone. If a zone read fails, the next poll reads the same zones again.
+ * The device can not tell a poll that it has sampled every zone and come back to the same zone, so that looks the same as a zone still being sampled.
+ * Poll more often than the device takes to sample every zone, or set {@link #setMinZoneDwell(Duration)} so a poll that comes later than that reads every zone again.
+ * 
+ * Finding a new sample takes the active zone read and then one read of the new zones. See {@link MultiZoneDevice#readZonesInto(ZoneStatusBuffer, int, int)}.
+ * Each poll that finds nothing new costs a 8 byte request and a 7 byte response, so polling the active zone a few times per sample still sends fewer bytes
+ * than reading every zone (a 8 byte request and a 69 byte response) each time.
+ * This class is not thread safe. Start the next poll after the last one has finished.
+ * @author Justin Brubaker
+ *
+ */
+public class IncrementalZonePoller {
+
+	private final MultiZoneDevice device;
+	private final ZoneStatusBuffer view = new ZoneStatusBuffer();
+	private int zonesInstalled = 0;
+	private int lastActiveZone = 0;
+	private long lastPollMillis = 0;
+	private long minZoneDwellMillis = 0;
+	private int updatedZones = 0;
+	private long activeZoneReads = 0;
+	private long zoneReads = 0;
+	
+	public IncrementalZonePoller(MultiZoneDevice _device) {
+		super();
+		device = _device;
+	}
+	
+	public MultiZoneDevice getDevice() {
+		return device;
+	}
+	
+	/**
+	 * @return The merged view of every zone. It must not be read while a poll is running.
+	 */
+	public ZoneStatusBuffer getView() {
+		return view;
+	}
+	
+	/**
+	 * @return A bit for each zone that was read by the last poll. Bit 0 is zone 1.
+	 */
+	public int getUpdatedZones() {
+		return updatedZones;
+	}
+	
+	/**
+	 * @return The number of polls that only read the active zone.
+	 */
+	public long getActiveZoneReads() {
+		return activeZoneReads;
+	}
+	
+	/**
+	 * @return The number of polls that read zone statuses.
+	 */
+	public long getZoneReads() {
+		return zoneReads;
+	}
+	
+	public Duration getMinZoneDwell() {
+		return Duration.ofMillis(minZoneDwellMillis);
+	}
+	
+	/**
+	 * @param minZoneDwell The shortest time the device spends sampling one zone. A poll that comes at least this long times the zones installed after the last poll reads every zone,
+	 * because the device may have sampled every zone and come back to the same one. {@link Duration#ZERO} turns this off.
+	 */
+	public void setMinZoneDwell(Duration minZoneDwell) {
+		minZoneDwellMillis = minZoneDwell.toMillis();
+	}
+	
+	/**
+	 * Forgets the active zone, so the next poll reads every zone.
+	 */
+	public void reset() {
+		zonesInstalled = 0;
+		lastActiveZone = 0;
+	}
+	
+	/**
+	 * This method blocks as it has to contact the modbus device.
+	 * @return The view, updated with any zones that finished a sample since the last poll.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public ZoneStatusBuffer poll() throws ModbusException, Exception {
+		return ModbusBus.await(pollAsync());
+	}
+	
+	/**
+	 * This method does not block. See {@link #poll()}.
+	 * @return The view, updated with any zones that finished a sample since the last poll.
+	 */
+	public CompletableFuture<ZoneStatusBuffer> pollAsync() {
+		if (zonesInstalled == 0 || (minZoneDwellMillis > 0 && System.currentTimeMillis() - lastPollMillis >= minZoneDwellMillis * zonesInstalled)) {
+			return readAll();
+		}
+		
+		return device.getActiveZoneAsync().thenCompose(active -> {
+			activeZoneReads++;
+			long polledAt = System.currentTimeMillis();
+			if (active < 1 || active > zonesInstalled || active == lastActiveZone) {
+				// Still sampling the same zone, or not sampling at all.
+				lastPollMillis = polledAt;
+				updatedZones = 0;
+				return CompletableFuture.completedFuture(view);
+			}
+			
+			// The zones from the last active zone up to the new one have finished sampling. Zone numbers here start with 1.
+			int first = lastActiveZone;
+			int finished = Math.floorMod(active - first, zonesInstalled);
+			if (first < 1 || first + finished - 1 > zonesInstalled) {
+				// The device was not sampling before, or the sampled zones wrap around past the last zone.
+				return readAll();
+			}
+			
+			zoneReads++;
+			int updated = ((1 << finished) - 1) << (first - 1);
+			// The active zone is only moved on once the zones are read, so a failed read is tried again by the next poll.
+			return device.readZonesIntoAsync(view, first - 1, finished).thenApply(buffer -> {
+				lastActiveZone = active;
+				lastPollMillis = polledAt;
+				updatedZones = updated;
+				return buffer;
+			});
+		});
+	}
+	
+	private CompletableFuture<ZoneStatusBuffer> readAll() {
+		return device.readAsync(EnumSet.of(MultiZoneRegister.ACTIVE_ZONE, MultiZoneRegister.ZONES_INSTALLED)).thenCompose(values -> {
+			zoneReads++;
+			long polledAt = System.currentTimeMillis();
+			return device.readAllZonesIntoAsync(view).thenApply(buffer -> {
+				zonesInstalled = values.getValue(MultiZoneRegister.ZONES_INSTALLED);
+				lastActiveZone = values.getValue(MultiZoneRegister.ACTIVE_ZONE);
+				lastPollMillis = polledAt;
+				updatedZones = 0xFFFF;
+				return buffer;
+			});
+		});
+	}
+	
+}
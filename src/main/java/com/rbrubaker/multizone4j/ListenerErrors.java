@@ -0,0 +1,23 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * Reports an exception thrown by a listener without stopping the poller that called it.
+ * @author Justin Brubaker
+ *
+ */
+public final class ListenerErrors {
+
+	private ListenerErrors() {
+		
+	}
+	
+	/**
+	 * Hands the exception to the current thread's uncaught exception handler, which prints it by default.
+	 * @param error The exception thrown by the listener.
+	 */
+	public static void report(Throwable error) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, error);
+	}
+	
+}
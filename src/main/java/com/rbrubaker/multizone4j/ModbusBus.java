@@ -0,0 +1,409 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusIOException;
+import com.ghgande.j2mod.modbus.facade.AbstractModbusMaster;
+import com.rbrubaker.multizone4j.metrics.BusMetrics;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+import com.rbrubaker.multizone4j.transport.DeviceHealth;
+import com.rbrubaker.multizone4j.transport.InstrumentedTransport;
+import com.rbrubaker.multizone4j.transport.J2ModTransport;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+import com.rbrubaker.multizone4j.transport.RetryPolicy;
+import com.rbrubaker.multizone4j.transport.RetryingTransport;
+import com.rbrubaker.multizone4j.transport.RtuOverTcpTransport;
+import com.rbrubaker.multizone4j.transport.SerialRtuTransport;
+import com.rbrubaker.multizone4j.transport.TcpTransport;
+
+/**
+ * This class represents a single modbus network, such as one RS485 serial port or one serial to Ethernet gateway.
+ * A bus owns the only connection to the network through a {@link ModbusTransport} and runs the requests of every device bound to it one at a time.
+ * This allows several {@link MultiZoneDevice}s with different modbus addresses to share one serial port.
+ * Each bus has its own worker thread, so devices behind different gateways are polled in parallel.
+ * 
+ * Requests are run in {@link BusPriority} order. Requests with the same priority are run in the order they were submitted.
+ * Rate limited requests, such as zone status reads (Manual B.3.3), wait in the queue without holding up the requests behind them.
+ * 
+ * Serial buses are shared by port name. Use {@link #getSerialBus(String, int)} to get the bus for a port.
+ * Gateway buses are shared by host and port. Use {@link #getTcpBus(String, int)} or {@link #getRtuOverTcpBus(String, int)}.
+ * The connection is opened when the first request is run and closed when the last bound device is released.
+ * 
+ * Every request is timed and counted. Use {@link #getMetrics()} to see the latency, errors and utilisation of the bus.
+ * 
+ * Each device gets a timeout learned from its round trip times, and requests that get no answer are retried. See {@link #getRetryPolicy()}.
+ * A device that keeps failing is quarantined, so its requests fail at once instead of stalling the other devices, and it is probed in the background until it answers.
+ * @author Justin Brubaker
+ *
+ */
+public class ModbusBus {
+
+	private static final HashMap<String, ModbusBus> sharedBuses = new HashMap<String, ModbusBus>();
+	
+	private final String name;
+	private final ModbusTransport transport;
+	private final BusMetrics metrics = new BusMetrics();
+	private final InstrumentedTransport instrumented;
+	private final RetryPolicy retryPolicy = new RetryPolicy();
+	private final RetryingTransport retrying;
+	private final BusScheduler scheduler = new BusScheduler();
+	private final HashSet<Integer> boundAddresses = new HashSet<Integer>();
+	private Thread worker;
+	private boolean connected = false;
+	private boolean shared = false;
+	private boolean released = false;
+	
+	/**
+	 * Creates a bus that is not shared by port name. This can be used to run devices through any j2mod master.
+	 * @param _name A name for the bus. This is used to name the worker thread.
+	 * @param _master The modbus master that owns the connection. It should not be connected yet.
+	 */
+	public ModbusBus(String _name, AbstractModbusMaster _master) {
+		this(new J2ModTransport(_name, _master));
+	}
+	
+	/**
+	 * Creates a bus that is not shared. The bus is named after the transport.
+	 * @param _transport The transport that owns the connection. It should not be connected yet.
+	 */
+	public ModbusBus(ModbusTransport _transport) {
+		super();
+		name = _transport.getName();
+		transport = _transport;
+		instrumented = new InstrumentedTransport(transport, metrics);
+		retrying = new RetryingTransport(instrumented, retryPolicy, this::scheduleProbe);
+		if (transport instanceof SerialRtuTransport || transport instanceof RtuOverTcpTransport) {
+			retryPolicy.setMinTimeout(RetryPolicy.SERIAL_MIN_TIMEOUT);
+		}
+	}
+	
+	/**
+	 * Gets the shared bus for the given serial port, creating it if needed.
+	 * This assumes the Bacharach MultiZone communication parameters. RTU, 8 data bits, No Parity Bit, 1 Stop Bit.
+	 * @param serialDeviceName The serial port name. Ex. /dev/serial1
+	 * @param baudRate The baud rate of every device on the port.
+	 * @return The bus for the serial port.
+	 * @throws IllegalArgumentException If the port is already in use at a different baud rate.
+	 */
+	public static synchronized ModbusBus getSerialBus(String serialDeviceName, int baudRate) throws IllegalArgumentException {
+		ModbusBus bus = sharedBuses.get(serialDeviceName);
+		
+		if (bus == null) {
+			bus = new ModbusBus(new SerialRtuTransport(serialDeviceName, baudRate));
+			bus.shared = true;
+			sharedBuses.put(serialDeviceName, bus);
+		} else if (!(bus.transport instanceof SerialRtuTransport) || ((SerialRtuTransport) bus.transport).getBaudRate() != baudRate) {
+			throw new IllegalArgumentException("The serial port " + serialDeviceName + " is already in use by " + bus.transport + ".");
+		}
+		
+		return bus;
+	}
+	
+	/**
+	 * Gets the shared bus for a Modbus TCP gateway, creating it if needed.
+	 * @param host The host name or IP address of the gateway.
+	 * @param port The TCP port of the gateway. Usually 502.
+	 * @return The bus for the gateway.
+	 */
+	public static synchronized ModbusBus getTcpBus(String host, int port) {
+		return getSharedBus(new TcpTransport(host, port));
+	}
+	
+	/**
+	 * Gets the shared bus for a transparent serial to Ethernet gateway that passes RTU frames through unchanged, creating it if needed.
+	 * @param host The host name or IP address of the gateway.
+	 * @param port The TCP port of the gateway's serial channel.
+	 * @return The bus for the gateway.
+	 */
+	public static synchronized ModbusBus getRtuOverTcpBus(String host, int port) {
+		return getSharedBus(new RtuOverTcpTransport(host, port));
+	}
+	
+	private static ModbusBus getSharedBus(ModbusTransport transport) {
+		ModbusBus bus = sharedBuses.get(transport.getName());
+		if (bus == null) {
+			bus = new ModbusBus(transport);
+			bus.shared = true;
+			sharedBuses.put(transport.getName(), bus);
+		}
+		return bus;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public ModbusTransport getTransport() {
+		return transport;
+	}
+	
+	/**
+	 * @return The latency, error and utilisation metrics of every request run on this bus.
+	 */
+	public BusMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * @return The timeout, retry and quarantine settings of this bus. Changes apply from the next request.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+	
+	/**
+	 * @param modbusAddress
+	 * @return The learned round trip time, timeout and quarantine state of the device.
+	 */
+	public DeviceHealth getDeviceHealth(int modbusAddress) {
+		return retrying.getHealth(modbusAddress);
+	}
+	
+	/**
+	 * Reserves a modbus address on this bus.
+	 * @param modbusAddress
+	 * @throws IllegalStateException If a device is already bound to the address, or this shared bus was released and another bus now owns its port.
+	 */
+	public void bind(int modbusAddress) throws IllegalStateException {
+		synchronized (ModbusBus.class) {
+			synchronized (this) {
+				if (shared && sharedBuses.get(name) != this) {
+					// Every device on this bus was released while the new device was being created.
+					if (sharedBuses.containsKey(name)) {
+						throw new IllegalStateException("The modbus bus " + name + " was released and its port is now owned by another bus.");
+					}
+					sharedBuses.put(name, this);
+				}
+				if (!boundAddresses.add(modbusAddress)) {
+					throw new IllegalStateException("A device with the modbus address " + modbusAddress + " is already bound to " + name + ".");
+				}
+				released = false;
+			}
+		}
+	}
+	
+	/**
+	 * Releases a modbus address on this bus. Requests for the address are rejected from now on.
+	 * The connection is closed when the last address is released, and the bus rejects every request until an address is bound again.
+	 * A shared bus is then forgotten, so the port can be opened again with different settings.
+	 * @param modbusAddress
+	 */
+	public void release(int modbusAddress) {
+		boolean close;
+		synchronized (ModbusBus.class) {
+			synchronized (this) {
+				boolean removed = boundAddresses.remove(modbusAddress);
+				if (removed) {
+					scheduler.forget(modbusAddress);
+				}
+				close = removed && boundAddresses.isEmpty();
+				if (close) {
+					released = true;
+					if (shared && sharedBuses.get(name) == this) {
+						sharedBuses.remove(name);
+					}
+				}
+			}
+		}
+		if (close) {
+			close();
+		}
+	}
+	
+	/**
+	 * Runs the operation on this bus with {@link BusPriority#STATUS} priority.
+	 * This method blocks until the operation has finished.
+	 * @param operation
+	 * @return The result of the operation.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public <T> T execute(BusOperation<T> operation) throws ModbusException, Exception {
+		return execute(BusPriority.STATUS, operation);
+	}
+	
+	/**
+	 * Runs the operation on this bus.
+	 * This method blocks until every higher priority request and the operation itself have finished.
+	 * @param priority
+	 * @param operation
+	 * @return The result of the operation.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public <T> T execute(BusPriority priority, BusOperation<T> operation) throws ModbusException, Exception {
+		return await(submit(priority, operation));
+	}
+	
+	/**
+	 * Queues the operation on this bus without blocking.
+	 * The returned future is completed by the bus worker thread.
+	 * Cancelling the future before the operation starts removes it from the queue.
+	 * The future fails with an {@link IllegalStateException} if every device on the bus has been released.
+	 * @param priority
+	 * @param operation
+	 * @return A future for the result of the operation.
+	 */
+	public <T> CompletableFuture<T> submit(BusPriority priority, BusOperation<T> operation) {
+		BusRequest<T> request = new BusRequest<T>(operation, priority, null, 0);
+		submit(request, null);
+		return request.result;
+	}
+	
+	/**
+	 * Queues an operation for a device on this bus.
+	 * The future fails with an {@link IllegalStateException} if the device's modbus address is not bound to this bus, such as after the device was disconnected.
+	 * @param modbusAddress
+	 * @param priority
+	 * @param operation
+	 * @return A future for the result of the operation.
+	 */
+	<T> CompletableFuture<T> submit(int modbusAddress, BusPriority priority, BusOperation<T> operation) {
+		BusRequest<T> request = new BusRequest<T>(operation, priority, null, 0);
+		submit(request, modbusAddress);
+		return request.result;
+	}
+	
+	/**
+	 * Queues an operation for a device on this bus, but it will not start sooner than minInterval after the last rate limited operation for the same device started.
+	 * The rate limit is kept by modbus address, so it is forgotten when the address is released.
+	 * @param modbusAddress
+	 * @param priority
+	 * @param minInterval
+	 * @param operation
+	 * @return A future for the result of the operation.
+	 */
+	<T> CompletableFuture<T> submit(int modbusAddress, BusPriority priority, Duration minInterval, BusOperation<T> operation) {
+		BusRequest<T> request = new BusRequest<T>(operation, priority, modbusAddress, minInterval.toNanos());
+		submit(request, modbusAddress);
+		return request.result;
+	}
+	
+	/**
+	 * Waits for a bus future and rethrows the exception that failed it.
+	 * If the waiting thread is interrupted the future is cancelled.
+	 * @param future
+	 * @return The result of the future.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	static <T> T await(CompletableFuture<T> future) throws ModbusException, Exception {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(false);
+			throw e;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * @param request
+	 * @param modbusAddress The address the request is for, or null if it is not for a device.
+	 */
+	private synchronized void submit(BusRequest<?> request, Integer modbusAddress) {
+		// A released bus must not reconnect. A new bus may already own its port.
+		if (released) {
+			request.result.completeExceptionally(new IllegalStateException("Every device on the modbus bus " + name + " has been released."));
+			return;
+		}
+		if (modbusAddress != null && !boundAddresses.contains(modbusAddress)) {
+			request.result.completeExceptionally(new IllegalStateException("No device with the modbus address " + modbusAddress + " is bound to " + name + "."));
+			return;
+		}
+		if (worker == null) {
+			worker = new Thread(this::runWorker, "ModbusBus-" + name);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		scheduler.add(request);
+	}
+	
+	/**
+	 * Stops the worker and closes the connection.
+	 * Requests that have not started yet fail with a {@link ModbusIOException}.
+	 * The bus will reconnect if another request is submitted, unless every device on it has been released.
+	 */
+	public void close() {
+		Thread stopping;
+		synchronized (this) {
+			stopping = worker;
+			worker = null;
+		}
+		
+		if (stopping != null) {
+			stopping.interrupt();
+			if (stopping != Thread.currentThread()) {
+				try {
+					stopping.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		
+		synchronized (this) {
+			if (connected) {
+				transport.disconnect();
+				connected = false;
+			}
+			
+			for (BusRequest<?> pending : scheduler.drain()) {
+				pending.result.completeExceptionally(new ModbusIOException("The modbus bus " + name + " was closed."));
+			}
+		}
+	}
+	
+	/**
+	 * Queues a background read of a quarantined device once its probe is due. A failed probe quarantines it again, which schedules the next probe.
+	 */
+	private void scheduleProbe(int modbusAddress, Duration delay) {
+		// The probe is rejected if the device was released in the meantime.
+		CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+			submit(modbusAddress, BusPriority.BACKGROUND, transport -> transport.readHoldingRegisters(modbusAddress, MultiZoneRegister.ZONES_INSTALLED.getAddress(), 1));
+		});
+	}
+	
+	private void runWorker() {
+		while (!Thread.currentThread().isInterrupted()) {
+			BusRequest<?> request;
+			try {
+				request = scheduler.take();
+			} catch (InterruptedException e) {
+				break;
+			}
+			
+			if (request.result.isDone()) {
+				// Cancelled or timed out while it was waiting in the queue.
+				continue;
+			}
+			
+			try {
+				request.run(getConnectedTransport());
+			} catch (Exception e) {
+				request.result.completeExceptionally(e);
+			}
+		}
+	}
+	
+	private ModbusTransport getConnectedTransport() throws Exception {
+		synchronized (this) {
+			if (!connected) {
+				transport.connect();
+				connected = true;
+			}
+		}
+		return retrying;
+	}
+	
+}
@@ -1,17 +1,29 @@
 package com.rbrubaker.multizone4j;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
 
+import com.ghgande.j2mod.modbus.Modbus;
 import com.ghgande.j2mod.modbus.ModbusException;
-import com.ghgande.j2mod.modbus.facade.ModbusSerialMaster;
-import com.ghgande.j2mod.modbus.net.AbstractSerialConnection;
-import com.ghgande.j2mod.modbus.procimg.InputRegister;
-import com.ghgande.j2mod.modbus.util.SerialParameters;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
 import com.rbrubaker.multizone4j.reference.AlarmStatus;
 import com.rbrubaker.multizone4j.reference.CurrentState;
 import com.rbrubaker.multizone4j.reference.OperatingMode;
 import com.rbrubaker.multizone4j.reference.RefrigerantType;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+import com.rbrubaker.multizone4j.registers.ReadPlan;
+import com.rbrubaker.multizone4j.registers.ReadPlanner;
+import com.rbrubaker.multizone4j.registers.RegisterBlock;
+import com.rbrubaker.multizone4j.registers.RegisterValues;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
 
 /**
  * This class represents a single Bacharach MultiZone device.
@@ -20,38 +32,135 @@ import com.rbrubaker.multizone4j.reference.RefrigerantType;
  * Baud: Can be set on the Bacharach MultiZone device. The default is 19200.
  * Parity: No Parity Bit
  * Stop Bits: 1 Stop Bit
+ * Devices behind a serial to Ethernet gateway are reached with a Modbus TCP or RTU over TCP bus. See {@link ModbusBus#getTcpBus(String, int)}.
  * 
+ * Devices with different modbus addresses on the same serial port share one {@link ModbusBus}, so their requests never collide.
+ * Each read is queued on the bus with a {@link BusPriority}. Alarm registers are read first, and zone status reads are limited to one every {@link #getZonePollInterval()}. (Manual B.3.3.)
+ * 
+ * Every read has a blocking version and an Async version that returns a {@link CompletableFuture}.
+ * The futures are completed by the bus worker thread, so one thread can drive many devices.
+ * Dependent stages that are not added with an async method also run on the bus worker thread and should return quickly.
+ * Cancelling a future removes the read from the bus queue if it has not started yet.
  * Make sure to call {@link #disconnect()} when you are done using this class.
  * @author Justin Brubaker
  *
  */
 public class MultiZoneDevice {
 
-	private int modbusAddress;		
-	private String serialDeviceName;
-	private int baudRate = 19200;
-	private ModbusSerialMaster master;
-	private SerialParameters params;
+	/**
+	 * The shortest time between zone status reads allowed by Manual Section B.3.3.
+	 */
+	public static final Duration DEFAULT_ZONE_POLL_INTERVAL = Duration.ofSeconds(20);
+	/**
+	 * How long the Manual Section B.4.2 setpoints are cached for by default.
+	 */
+	public static final Duration DEFAULT_CONFIGURATION_CACHE_TTL = Duration.ofMinutes(5);
+	
+	private static final ReadPlanner READ_PLANNER = new ReadPlanner();
+	/**
+	 * Unchanged registers between two changed ones are rewritten with their current value when the gap is this small, so the changes go in one request.
+	 */
+	private static final int WRITE_MAX_GAP = 4;
+	
+	private final int modbusAddress;
+	private final ModbusBus bus;
+	private volatile Duration zonePollInterval = DEFAULT_ZONE_POLL_INTERVAL;
+	private volatile Duration requestTimeout = Duration.ZERO;
+	private volatile boolean multipleRegisterWrites = true;
+	private final ConfigurationCache configurationCache = new ConfigurationCache(this::loadConfigurationAsync, DEFAULT_CONFIGURATION_CACHE_TTL);
+	private final ZoneReadCoalescer zoneReads = new ZoneReadCoalescer(this::loadZoneRegistersAsync);
 	
 	
 	public MultiZoneDevice(int _modbusAddress, String _serialDeviceName, int _baudRate) {
+		this(_modbusAddress, ModbusBus.getSerialBus(_serialDeviceName, _baudRate));
+	}
+	
+	/**
+	 * @param _modbusAddress The modbus address of the device.
+	 * @param _bus The bus that the device is connected to.
+	 * @throws IllegalStateException If another device is already bound to the modbus address on this bus.
+	 */
+	public MultiZoneDevice(int _modbusAddress, ModbusBus _bus) throws IllegalStateException {
 		super();
 		modbusAddress = _modbusAddress;
-		serialDeviceName = _serialDeviceName;
-		baudRate = _baudRate;
-	}	
+		bus = _bus;
+		bus.bind(modbusAddress);
+	}
 	
+	/**
+	 * Releases this device's address on the bus. The serial port is closed once every device on it has been disconnected.
+	 */
 	public void disconnect() {
-		master.disconnect();
+		bus.release(modbusAddress);
+	}
+	
+	public int getModbusAddress() {
+		return modbusAddress;
+	}
+	
+	public ModbusBus getBus() {
+		return bus;
+	}
+	
+	public Duration getZonePollInterval() {
+		return zonePollInterval;
+	}
+	
+	/**
+	 * Sets the shortest time between zone status reads of this device.
+	 * The methods that read zone statuses wait in the bus queue until this much time has passed since the previous zone status read.
+	 * Bacharach documentation states that zone statuses should not be polled more often than every 20 seconds. (Manual B.3.3.)
+	 * @param _zonePollInterval The interval. {@link Duration#ZERO} disables the limit.
+	 */
+	public void setZonePollInterval(Duration _zonePollInterval) {
+		zonePollInterval = _zonePollInterval;
+	}
+	
+	public Duration getRequestTimeout() {
+		return requestTimeout;
+	}
+	
+	/**
+	 * Sets how long a read may take, including the time spent waiting in the bus queue.
+	 * When the timeout passes the future fails with a {@link TimeoutException} and the request is dropped from the queue if it has not started yet.
+	 * @param _requestTimeout The timeout. {@link Duration#ZERO} means no timeout. This is the default.
+	 */
+	public void setRequestTimeout(Duration _requestTimeout) {
+		requestTimeout = _requestTimeout;
+	}
+	
+	public Duration getConfigurationCacheTtl() {
+		return configurationCache.getTimeToLive();
 	}
 	
-	private void checkAndSetupMaster() throws Exception {
-		if (master == null) {
-			params = new SerialParameters(serialDeviceName, baudRate, AbstractSerialConnection.FLOW_CONTROL_DISABLED,
-					AbstractSerialConnection.FLOW_CONTROL_DISABLED, 8, AbstractSerialConnection.ONE_STOP_BIT, AbstractSerialConnection.NO_PARITY, false);
-			master = new ModbusSerialMaster(params);
-			master.connect();
-		}	
+	/**
+	 * Sets how long the configuration returned by {@link #getConfiguration()} is reused before the device is read again.
+	 * @param ttl The time to live. {@link Duration#ZERO} reads the device every time, but concurrent callers still share one read.
+	 */
+	public void setConfigurationCacheTtl(Duration ttl) {
+		configurationCache.setTimeToLive(ttl);
+	}
+	
+	public Duration getZoneReadFreshness() {
+		return zoneReads.getFreshness();
+	}
+	
+	/**
+	 * Sets how long the result of a zone status or snapshot read is shared with later callers.
+	 * Reads that are queued or running are always shared, so concurrent callers of {@link #getCurrentZoneStatus(int)}, {@link #getAllCurrentZoneStatuses()},
+	 * {@link #readAllZonesInto(ZoneStatusBuffer)} and {@link #getSnapshot()} cost one bus transaction as long as one of the reads covers the registers the others need.
+	 * @param freshness How long a finished read is reused. {@link Duration#ZERO} only shares reads that have not finished yet. This is the default.
+	 */
+	public void setZoneReadFreshness(Duration freshness) {
+		zoneReads.setFreshness(freshness);
+	}
+	
+	/**
+	 * Forgets the cached configuration, so the next setpoint read contacts the device.
+	 * Call this after the setpoints have been changed on the device's front panel.
+	 */
+	public void invalidateConfiguration() {
+		configurationCache.invalidate();
 	}
 	
 	/**
@@ -64,21 +173,28 @@ public class MultiZoneDevice {
 	 * 
 	 */
 	public CurrentZoneStatus getCurrentZoneStatus(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getCurrentZoneStatusAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * Gets the current zone ppm and alarm status for the given zone number.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<CurrentZoneStatus> getCurrentZoneStatusAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		checkAndSetupMaster();
-		
-		InputRegister[] ppmRegs = master.readMultipleRegisters(modbusAddress, 2001 + zoneNumber, 1);
-		int ppmZone = ppmRegs[0].getValue();
-		
-		InputRegister[] alarmRegs = master.readMultipleRegisters(modbusAddress, 2017 + zoneNumber, 1);
-		int alarmLevel = alarmRegs[0].getValue();
-		
-		CurrentZoneStatus zone = new CurrentZoneStatus(ppmZone, alarmLevel);		
-		
-		return zone;
+		// The zone's ppm and alarm registers are 16 apart, so one read of the registers between them gets both.
+		int ppmAddress = MultiZoneRegister.ZONE_PPM.getAddress(zoneNumber);
+		int alarmAddress = MultiZoneRegister.ZONE_ALARM_STATUS.getAddress(zoneNumber);
+		return zoneReads.read(ppmAddress, alarmAddress - ppmAddress + 1, read -> {
+			return new CurrentZoneStatus(read.getRegister(ppmAddress), read.getRegister(alarmAddress), Instant.ofEpochMilli(read.getReadAtMillis()));
+		});
 	}
 	
 	/**
@@ -89,42 +205,491 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public ArrayList<CurrentZoneStatus> getAllCurrentZoneStatuses() throws ModbusException, Exception {
-		ArrayList<CurrentZoneStatus> zones = new ArrayList<CurrentZoneStatus>();
-		
-		checkAndSetupMaster();
-		
-		InputRegister[] ppmRegs = master.readMultipleRegisters(modbusAddress, 2001, 16);
-		InputRegister[] alarmRegs = master.readMultipleRegisters(modbusAddress, 2017, 16);
-		
-		for (int i = 0; i < 16; i++) {
-			CurrentZoneStatus zone = new CurrentZoneStatus(ppmRegs[i].getValue(), alarmRegs[i].getValue());
-			zones.add(zone);
-		}		
-		
-		return zones;
+		return ModbusBus.await(getAllCurrentZoneStatusesAsync());
 	}
 	
 	/**
-	 * This internal method reads a single integer value from a modbus function 03 register.
-	 * @param registerNumber
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
 	 * @return
+	 */
+	public CompletableFuture<ArrayList<CurrentZoneStatus>> getAllCurrentZoneStatusesAsync() {
+		// The ppm registers (2001-2016) are directly followed by the alarm registers (2017-2032), so one read gets both.
+		return zoneReads.read(2001, 32, read -> {
+			ArrayList<CurrentZoneStatus> zones = new ArrayList<CurrentZoneStatus>();
+			Instant updatedAt = Instant.ofEpochMilli(read.getReadAtMillis());
+			
+			for (int i = 0; i < 16; i++) {
+				CurrentZoneStatus zone = new CurrentZoneStatus(read.getRegister(2001 + i), read.getRegister(2017 + i), updatedAt);
+				zones.add(zone);
+			}
+			
+			return zones;
+		});
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads the ppm and alarm status of all 16 zones (registers 2001-2032) in a single modbus transaction and stores them in the given buffer.
+	 * This is meant for high frequency polling loops. No list or {@link CurrentZoneStatus} objects are created, but every read still allocates the modbus request, the response and its register values.
+	 * @param buffer The buffer to fill. It can be reused for every poll.
+	 * @return The same buffer.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public ZoneStatusBuffer readAllZonesInto(ZoneStatusBuffer buffer) throws ModbusException, Exception {
+		return ModbusBus.await(readAllZonesIntoAsync(buffer));
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has filled the buffer.
+	 * See {@link #readAllZonesInto(ZoneStatusBuffer)}. The buffer must not be read until the future is complete.
+	 * @param buffer The buffer to fill. It can be reused for every poll.
+	 * @return The same buffer.
+	 */
+	public CompletableFuture<ZoneStatusBuffer> readAllZonesIntoAsync(ZoneStatusBuffer buffer) {
+		int first = MultiZoneRegister.ZONE_PPM.getAddress();
+		return zoneReads.read(first, ZoneStatusBuffer.ZONE_COUNT * 2, read -> {
+			buffer.fill(read.getValues(), read.indexOf(first), read.getReadAtMillis());
+			return buffer;
+		});
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads the ppm and alarm status of a run of zones and stores them in the given buffer. The other zones in the buffer are left as they are.
+	 * The ppm and alarm registers are read in one modbus transaction when reading the 16 - zoneCount registers between them is quicker than a second transaction.
+	 * A second transaction costs a 8 byte request, a 5 byte response header, 7 characters of silence between frames and the device's turnaround.
+	 * With no turnaround one transaction is quicker from 6 zones up on a serial line. With a turnaround of 10 ms at 19200 baud it is always quicker.
+	 * Network transports always use one transaction.
+	 * It is limited to one read every {@link #getZonePollInterval()} along with the other zone status reads. (Manual B.3.3.)
+	 * @param buffer The buffer to update.
+	 * @param firstZone This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param zoneCount The number of zones to read.
+	 * @return The same buffer.
 	 * @throws ModbusException
 	 * @throws Exception
+	 * @throws IllegalArgumentException
+	 */
+	public ZoneStatusBuffer readZonesInto(ZoneStatusBuffer buffer, int firstZone, int zoneCount) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(readZonesIntoAsync(buffer, firstZone, zoneCount));
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. See {@link #readZonesInto(ZoneStatusBuffer, int, int)}.
+	 * @param buffer The buffer to update. It must not be read until the future is complete.
+	 * @param firstZone This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param zoneCount The number of zones to read.
+	 * @return The same buffer.
+	 * @throws IllegalArgumentException
 	 */
-	private int readSingleFunction03RegisterAsInt(int registerNumber) throws ModbusException, Exception {
-		checkAndSetupMaster();
+	public CompletableFuture<ZoneStatusBuffer> readZonesIntoAsync(ZoneStatusBuffer buffer, int firstZone, int zoneCount) throws IllegalArgumentException {
+		if (firstZone < 0 || zoneCount < 1 || firstZone + zoneCount > 16) {
+			throw new IllegalArgumentException("The zones must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
 		
-		InputRegister[] reg = master.readMultipleRegisters(modbusAddress, registerNumber, 1);
+		return submitZoneStatusRead(transport -> {
+			int ppmStart = MultiZoneRegister.ZONE_PPM.getAddress(firstZone);
+			int alarmStart = MultiZoneRegister.ZONE_ALARM_STATUS.getAddress(firstZone);
+			if (readZonesInOneTransaction(transport, zoneCount)) {
+				int[] regs = transport.readHoldingRegisters(modbusAddress, ppmStart, alarmStart - ppmStart + zoneCount);
+				buffer.fillZones(firstZone, zoneCount, regs, 0, regs, alarmStart - ppmStart, System.currentTimeMillis());
+			} else {
+				int[] ppm = transport.readHoldingRegisters(modbusAddress, ppmStart, zoneCount);
+				int[] alarms = transport.readHoldingRegisters(modbusAddress, alarmStart, zoneCount);
+				buffer.fillZones(firstZone, zoneCount, ppm, 0, alarms, 0, System.currentTimeMillis());
+			}
+			return buffer;
+		});
+	}
+	
+	/**
+	 * This internal method compares the time to read the registers between the ppm and alarm runs with the time a second transaction would take.
+	 * See {@link #readZonesInto(ZoneStatusBuffer, int, int)}.
+	 */
+	private boolean readZonesInOneTransaction(ModbusTransport transport, int zoneCount) {
+		long gapNanos = transport.getTransmitNanos(2 * (ZoneStatusBuffer.ZONE_COUNT - zoneCount));
+		long secondTransactionNanos = transport.getTransmitNanos(8 + 5 + 7);
+		Duration turnaround = bus.getDeviceHealth(modbusAddress).getSmoothedRtt();
+		if (turnaround != null) {
+			secondTransactionNanos += turnaround.toNanos();
+		}
+		return gapNanos <= secondTransactionNanos;
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads all of the registers from 2000 to 2054 in a single modbus transaction.
+	 * This is much faster than calling each of the B.4.1 getters when more than one value is needed.
+	 * Keep in mind that the snapshot includes the zone statuses, so it is limited to one read every {@link #getZonePollInterval()} along with the other zone status reads. (Manual B.3.3.)
+	 * @return A {@link DeviceSnapshot} containing every B.4.1 value at a single point in time.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public DeviceSnapshot getSnapshot() throws ModbusException, Exception {
+		return ModbusBus.await(getSnapshotAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * See {@link #getSnapshot()}.
+	 * @return A {@link DeviceSnapshot} containing every B.4.1 value at a single point in time.
+	 */
+	public CompletableFuture<DeviceSnapshot> getSnapshotAsync() {
+		return readSnapshotAsync(true);
+	}
+	
+	/**
+	 * This internal method reads a snapshot for {@link DevicePoller} and {@link MultiZoneFleet}.
+	 * It never reuses a finished read, so a poller does not get the same snapshot over and over during the {@link #getZoneReadFreshness()} window.
+	 * @return
+	 */
+	CompletableFuture<DeviceSnapshot> pollSnapshotAsync() {
+		return readSnapshotAsync(false);
+	}
+	
+	private CompletableFuture<DeviceSnapshot> readSnapshotAsync(boolean shareFinished) {
+		return zoneReads.read(DeviceSnapshot.FIRST_REGISTER, DeviceSnapshot.REGISTER_COUNT, shareFinished, read -> {
+			return new DeviceSnapshot(read.getRegisters(DeviceSnapshot.FIRST_REGISTER, DeviceSnapshot.REGISTER_COUNT), Instant.ofEpochMilli(read.getReadAtMillis()));
+		});
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method only blocks when the cached configuration has expired.
+	 * Reads the refrigerant type, leak, spill, evacuation and sample distance setpoints of every zone (registers 3000-3079) in a single modbus transaction.
+	 * The result is cached for {@link #getConfigurationCacheTtl()}. Concurrent callers share a single read.
+	 * @return The {@link DeviceConfiguration} of the device.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public DeviceConfiguration getConfiguration() throws ModbusException, Exception {
+		return ModbusBus.await(getConfigurationAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired.
+	 * See {@link #getConfiguration()}.
+	 * @return The {@link DeviceConfiguration} of the device.
+	 */
+	public CompletableFuture<DeviceConfiguration> getConfigurationAsync() {
+		return configurationCache.get();
+	}
+	
+	/**
+	 * Manual Sections B.4.1 and B.4.2.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads every register of the device in two block transactions: registers 2000-2054 and registers 3000-3096.
+	 * The setpoints that are read also refresh the cached configuration.
+	 * The detail block includes the zone statuses, so this is limited to one read every {@link #getZonePollInterval()} along with the other zone status reads. (Manual B.3.3.)
+	 * @return Every value of the device.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public DeviceDetail getDetail() throws ModbusException, Exception {
+		return ModbusBus.await(getDetailAsync(null));
+	}
+	
+	/**
+	 * Manual Sections B.4.1 and B.4.2.
+	 * This method does not block. See {@link #getDetail()}.
+	 * @return Every value of the device.
+	 */
+	public CompletableFuture<DeviceDetail> getDetailAsync() {
+		return getDetailAsync(null);
+	}
+	
+	/**
+	 * Manual Sections B.4.1 and B.4.2.
+	 * This method does not block. See {@link #getDetail()}.
+	 * Each block is decoded as soon as it arrives and handed to the listener before the next block is requested.
+	 * An exception thrown by the listener is reported with {@link ListenerErrors} and does not stop the read.
+	 * @param listener Receives each decoded block. Can be null.
+	 * @return Every value of the device.
+	 */
+	public CompletableFuture<DeviceDetail> getDetailAsync(BlockListener listener) {
+		return submitZoneStatusRead(transport -> {
+			RegisterBlock detailBlock = DeviceDetail.DETAIL_BLOCK;
+			int[] detail = transport.readRegisters(detailBlock.getFunctionCode(), modbusAddress, detailBlock.getStartAddress(), detailBlock.getCount());
+			DeviceSnapshot snapshot = new DeviceSnapshot(detail, Instant.now());
+			if (listener != null) {
+				try {
+					listener.onDetailBlock(snapshot);
+				} catch (RuntimeException e) {
+					ListenerErrors.report(e);
+				}
+			}
+			
+			RegisterBlock setupBlock = DeviceDetail.SETUP_BLOCK;
+			int[] setup = transport.readRegisters(setupBlock.getFunctionCode(), modbusAddress, setupBlock.getStartAddress(), setupBlock.getCount());
+			DeviceConfiguration configuration = new DeviceConfiguration(Arrays.copyOf(setup, DeviceConfiguration.REGISTER_COUNT), Instant.now());
+			int[] acknowledgeStates = Arrays.copyOfRange(setup, DeviceConfiguration.REGISTER_COUNT, setup.length);
+			configurationCache.put(configuration);
+			if (listener != null) {
+				try {
+					listener.onSetupBlock(configuration, acknowledgeStates);
+				} catch (RuntimeException e) {
+					ListenerErrors.report(e);
+				}
+			}
+			
+			return new DeviceDetail(snapshot, configuration, acknowledgeStates);
+		});
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method blocks as it has to contact the modbus device.
+	 * Writes the setpoints in the update that differ from the values on the device, then reads them back to make sure the device kept them.
+	 * The current setpoints are read in one block, changed registers that are close together are written with one function 16 request,
+	 * and the result is checked with one block read. Devices that do not support function 16 are written one register at a time with function 06.
+	 * The cached configuration is replaced with the values read back.
+	 * @param update The setpoints to write.
+	 * @return What was written.
+	 * @throws ConfigurationVerificationException If the values read back do not match the update.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public ConfigurationWriteResult writeConfiguration(ConfigurationUpdate update) throws ConfigurationVerificationException, ModbusException, Exception {
+		return ModbusBus.await(writeConfigurationAsync(update));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. See {@link #writeConfiguration(ConfigurationUpdate)}.
+	 * The read, the writes and the read back run as one bus operation, so no other request can change the device in between.
+	 * @param update The setpoints to write.
+	 * @return What was written. The future fails with a {@link ConfigurationVerificationException} if the values read back do not match the update.
+	 */
+	public CompletableFuture<ConfigurationWriteResult> writeConfigurationAsync(ConfigurationUpdate update) {
+		return submit(BusPriority.STATUS, transport -> {
+			int first = DeviceConfiguration.FIRST_REGISTER;
+			int[] current = transport.readInputRegisters(modbusAddress, first, DeviceConfiguration.REGISTER_COUNT);
+			DeviceConfiguration before = new DeviceConfiguration(current, Instant.now());
+			
+			int[] desired = current.clone();
+			int changed = 0;
+			for (int i = 0; i < desired.length; i++) {
+				if (update.isSet(first + i) && update.getRegister(first + i) != current[i]) {
+					desired[i] = update.getRegister(first + i);
+					changed++;
+				}
+			}
+			
+			ArrayList<RegisterBlock> writes = new ArrayList<RegisterBlock>();
+			if (changed == 0) {
+				configurationCache.put(before);
+				return new ConfigurationWriteResult(before, before, writes, 0);
+			}
+			
+			int i = 0;
+			while (i < desired.length) {
+				if (desired[i] == current[i]) {
+					i++;
+					continue;
+				}
+				
+				// Extend the run over later changes that are close enough to share the request.
+				int end = i + 1;
+				for (int j = i + 1; j < desired.length && j - end <= WRITE_MAX_GAP; j++) {
+					if (desired[j] != current[j]) {
+						end = j + 1;
+					}
+				}
+				
+				writeRegisters(transport, first + i, Arrays.copyOfRange(desired, i, end), Arrays.copyOfRange(current, i, end), writes);
+				i = end;
+			}
+			
+			DeviceConfiguration after = new DeviceConfiguration(transport.readInputRegisters(modbusAddress, first, DeviceConfiguration.REGISTER_COUNT), Instant.now());
+			configurationCache.put(after);
+			ConfigurationWriteResult result = new ConfigurationWriteResult(before, after, writes, changed);
+			
+			// Registers that were not changed can differ too, such as a setpoint changed on the front panel, so every register is counted.
+			int[] mismatched = new int[desired.length];
+			int mismatches = 0;
+			for (int j = 0; j < desired.length; j++) {
+				if (after.getRegister(first + j) != desired[j]) {
+					mismatched[mismatches++] = first + j;
+				}
+			}
+			if (mismatches > 0) {
+				throw new ConfigurationVerificationException(result, Arrays.copyOf(mismatched, mismatches));
+			}
+			return result;
+		});
+	}
+	
+	/**
+	 * This internal method writes a run of registers with function 16, or with function 06 for a single register or a device that does not support function 16.
+	 * Registers in the run that already hold their value are skipped when writing with function 06.
+	 */
+	private void writeRegisters(ModbusTransport transport, int startAddress, int[] values, int[] currentValues, ArrayList<RegisterBlock> writes) throws ModbusException {
+		if (values.length > 1 && multipleRegisterWrites) {
+			try {
+				transport.writeMultipleRegisters(modbusAddress, startAddress, values);
+				writes.add(new RegisterBlock(Modbus.WRITE_MULTIPLE_REGISTERS, startAddress, values.length));
+				return;
+			} catch (ModbusSlaveException e) {
+				if (!e.isType(Modbus.ILLEGAL_FUNCTION_EXCEPTION)) {
+					throw e;
+				}
+				multipleRegisterWrites = false;
+			}
+		}
 		
-		return reg[0].getValue();		
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == currentValues[i]) {
+				continue;
+			}
+			transport.writeSingleRegister(modbusAddress, startAddress + i, values[i]);
+			writes.add(new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, startAddress + i, 1));
+		}
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. Reads the setpoints from the device at background priority and caches them, even if the cached configuration is still fresh.
+	 * The cached configuration keeps being used until the read finishes.
+	 * @return The {@link DeviceConfiguration} read from the device.
+	 */
+	public CompletableFuture<DeviceConfiguration> reloadConfigurationAsync() {
+		return loadConfigurationAsync().thenApply(configuration -> {
+			configurationCache.put(configuration);
+			return configuration;
+		});
 	}
 	
-	private int readSingleFunction04RegisterAsInt(int registerNumber) throws ModbusException, Exception {
-		checkAndSetupMaster();
+	/**
+	 * Stores a configuration that was read some other way, such as one saved to disk, so the setpoint getters do not have to contact the device.
+	 * It replaces the cached configuration if it is newer, and is reused until it is older than {@link #getConfigurationCacheTtl()}.
+	 * @param configuration
+	 */
+	public void putConfiguration(DeviceConfiguration configuration) {
+		configurationCache.put(configuration);
+	}
+	
+	private CompletableFuture<DeviceConfiguration> loadConfigurationAsync() {
+		return submit(BusPriority.BACKGROUND, transport -> {
+			int[] values = transport.readInputRegisters(modbusAddress, DeviceConfiguration.FIRST_REGISTER, DeviceConfiguration.REGISTER_COUNT);
+			return new DeviceConfiguration(values, Instant.now());
+		});
+	}
+	
+	/**
+	 * Manual Sections B.4.1 and B.4.2.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads any set of registers with the fewest modbus requests. See {@link ReadPlanner}.
+	 * If any zone status register is included the read is limited by {@link #getZonePollInterval()}. (Manual B.3.3.)
+	 * @param registers The registers to read.
+	 * @return The values of the registers.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public RegisterValues read(Set<MultiZoneRegister> registers) throws ModbusException, Exception {
+		return ModbusBus.await(readAsync(registers));
+	}
+	
+	/**
+	 * Manual Sections B.4.1 and B.4.2.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * See {@link #read(Set)}.
+	 * @param registers The registers to read.
+	 * @return The values of the registers.
+	 */
+	public CompletableFuture<RegisterValues> readAsync(Set<MultiZoneRegister> registers) {
+		return readAsync(READ_PLANNER.plan(registers), registers);
+	}
+	
+	/**
+	 * Runs a plan that was made ahead of time, so that it is not planned again on every poll.
+	 * @param plan
+	 * @param registers The registers the plan was made for. These decide the priority of the read.
+	 * @return The values of the registers.
+	 */
+	public CompletableFuture<RegisterValues> readAsync(ReadPlan plan, Set<MultiZoneRegister> registers) {
+		BusPriority priority = BusPriority.BACKGROUND;
+		boolean zoneStatus = false;
+		for (MultiZoneRegister register : registers) {
+			if (register.getPriority() == BusPriority.ZONE_STATUS) {
+				zoneStatus = true;
+			} else if (register.getPriority().ordinal() < priority.ordinal()) {
+				priority = register.getPriority();
+			}
+		}
 		
-		InputRegister[] reg = master.readInputRegisters(modbusAddress, registerNumber, 1);
-				
-		return reg[0].getValue();		
+		if (zoneStatus) {
+			return submitZoneStatusRead(transport -> plan.execute(transport, modbusAddress));
+		}
+		return submit(priority, transport -> plan.execute(transport, modbusAddress));
+	}
+	
+	/**
+	 * This internal method queues an operation on the bus and applies the request timeout to it.
+	 * @param priority
+	 * @param operation
+	 * @return
+	 */
+	private <T> CompletableFuture<T> submit(BusPriority priority, BusOperation<T> operation) {
+		return withRequestTimeout(bus.submit(modbusAddress, priority, operation));
+	}
+	
+	/**
+	 * This internal method queues a read of B.4.1 holding registers for the {@link ZoneReadCoalescer}.
+	 * @param startAddress
+	 * @param count
+	 * @return
+	 */
+	private CompletableFuture<int[]> loadZoneRegistersAsync(int startAddress, int count) {
+		return submitZoneStatusRead(transport -> transport.readHoldingRegisters(modbusAddress, startAddress, count));
+	}
+	
+	/**
+	 * This internal method queues a zone status operation that is limited to one every {@link #getZonePollInterval()}.
+	 * @param operation
+	 * @return
+	 */
+	private <T> CompletableFuture<T> submitZoneStatusRead(BusOperation<T> operation) {
+		return withRequestTimeout(bus.submit(modbusAddress, BusPriority.ZONE_STATUS, zonePollInterval, operation));
+	}
+	
+	private <T> CompletableFuture<T> withRequestTimeout(CompletableFuture<T> future) {
+		Duration timeout = requestTimeout;
+		if (!timeout.isZero()) {
+			future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		return future;
+	}
+	
+	/**
+	 * This internal method reads a single register from the {@link MultiZoneRegister} catalogue.
+	 * @param register
+	 * @param index The zone number for registers with a width of 16, otherwise 0.
+	 * @param decoder Converts the raw register value. This runs on the bus worker thread.
+	 * @return
+	 */
+	private <T> CompletableFuture<T> readRegisterAsync(MultiZoneRegister register, int index, IntFunction<T> decoder) {
+		int address = register.getAddress(index);
+		return submit(register.getPriority(), transport -> {
+			return decoder.apply(transport.readRegisters(register.getFunctionCode(), modbusAddress, address, 1)[0]);
+		});
+	}
+	
+	/**
+	 * This internal method decodes the scaled B.4.1 registers the way the getters always have, by dividing with integer division.
+	 * The exact values are available from {@link DeviceSnapshot}.
+	 * @param register
+	 * @return
+	 */
+	private static IntFunction<Double> wholeScale(MultiZoneRegister register) {
+		return value -> (double) (value / register.getScale());
 	}
 	
 	/**
@@ -135,7 +700,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getCurrentOperatingMode() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2033);
+		return ModbusBus.await(getCurrentOperatingModeAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.	
+	 * @return The current operating mode of the Multi-Zone device. Use {@link OperatingMode} to decode the meaning of this value.
+	 */
+	public CompletableFuture<Integer> getCurrentOperatingModeAsync() {
+		return readRegisterAsync(MultiZoneRegister.OPERATING_MODE, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -146,7 +720,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getCurrentState() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2034);
+		return ModbusBus.await(getCurrentStateAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The current state of the Multi-Zone device. Use {@link CurrentState} to decode the meaning of this value.
+	 */
+	public CompletableFuture<Integer> getCurrentStateAsync() {
+		return readRegisterAsync(MultiZoneRegister.CURRENT_STATE, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -157,7 +740,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getActiveZone() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2036);
+		return ModbusBus.await(getActiveZoneAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The zone that the Multi-Zone device is currently taking a reading of. This zone number is base 1. So a value of 1 indicates zone 1.
+	 */
+	public CompletableFuture<Integer> getActiveZoneAsync() {
+		return readRegisterAsync(MultiZoneRegister.ACTIVE_ZONE, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -168,7 +760,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getMaxAlarm() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2037);
+		return ModbusBus.await(getMaxAlarmAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The highest unacknowledged alarm level across all 16 zones. Use {@link AlarmStatus} to decode the meaning of this value.
+	 */
+	public CompletableFuture<Integer> getMaxAlarmAsync() {
+		return readRegisterAsync(MultiZoneRegister.MAX_ALARM, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -179,7 +780,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getActiveAlarmCount() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2038);
+		return ModbusBus.await(getActiveAlarmCountAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The number of zones with alarms active. This will be a number between 0 and 16.
+	 */
+	public CompletableFuture<Integer> getActiveAlarmCountAsync() {
+		return readRegisterAsync(MultiZoneRegister.ACTIVE_ALARM_COUNT, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -190,7 +800,42 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getAcknowledgedAlarmCount() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2039);
+		return ModbusBus.await(getAcknowledgedAlarmCountAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The number of zones with alarms that have been acknowledged. This will be a number between 0 and 16.
+	 */
+	public CompletableFuture<Integer> getAcknowledgedAlarmCountAsync() {
+		return readRegisterAsync(MultiZoneRegister.ACKNOWLEDGED_ALARM_COUNT, 0, Integer::valueOf);
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method blocks as it has to contact the modbus device.
+	 * Reads the max alarm, active alarm count and acknowledged alarm count registers (2037-2039) in a single modbus transaction.
+	 * This is an alarm read, so it is not limited by {@link #getZonePollInterval()}.
+	 * @return An {@link AlarmSummary} of all 16 zones.
+	 * @throws ModbusException
+	 * @throws Exception
+	 */
+	public AlarmSummary getAlarmSummary() throws ModbusException, Exception {
+		return ModbusBus.await(getAlarmSummaryAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * See {@link #getAlarmSummary()}.
+	 * @return An {@link AlarmSummary} of all 16 zones.
+	 */
+	public CompletableFuture<AlarmSummary> getAlarmSummaryAsync() {
+		return submit(BusPriority.ALARM, transport -> {
+			int[] regs = transport.readHoldingRegisters(modbusAddress, MultiZoneRegister.MAX_ALARM.getAddress(), AlarmSummary.REGISTER_COUNT);
+			return new AlarmSummary(regs[0], regs[1], regs[2], Instant.now());
+		});
 	}
 	
 	/**
@@ -201,7 +846,16 @@ public class MultiZoneDevice {
 	 * @throws ModbusException 
 	 */
 	public int getFaultCodeStatus() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2041);
+		return ModbusBus.await(getFaultCodeStatusAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The fault code on the Multi-Zone device. No faults is a value of 0000. See Manual Section 4.5 for information on decoding system faults.
+	 */
+	public CompletableFuture<Integer> getFaultCodeStatusAsync() {
+		return readRegisterAsync(MultiZoneRegister.FAULT_CODE_STATUS, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -213,7 +867,17 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getFaultCode() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2000);
+		return ModbusBus.await(getFaultCodeAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * This method only exists for completeness as the register list has two different registers for fault code.
+	 * @return The fault code on the Multi-Zone device. No faults is a value of 0000. See Manual Section 4.6 for information on decoding system faults.
+	 */
+	public CompletableFuture<Integer> getFaultCodeAsync() {
+		return readRegisterAsync(MultiZoneRegister.FAULT_CODE, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -224,11 +888,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public Optional<Boolean> isAudibleAlarm() throws ModbusException, Exception {
-		switch (readSingleFunction03RegisterAsInt(2042)) {
-			case 0: return Optional.of(false);
-			case 1: return Optional.of(true);
-			default: return Optional.empty();
-		}
+		return ModbusBus.await(isAudibleAlarmAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return An {@link Optional} containing true or false. If the modbus response is not 0 or 1 the optional will be empty.
+	 */
+	public CompletableFuture<Optional<Boolean>> isAudibleAlarmAsync() {
+		return readRegisterAsync(MultiZoneRegister.AUDIBLE_ALARM, 0, MultiZoneDevice::toOptionalBoolean);
 	}
 	
 	/**
@@ -239,11 +908,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public Optional<Boolean> isSilenced() throws ModbusException, Exception {
-		switch (readSingleFunction03RegisterAsInt(2043)) {
-			case 0: return Optional.of(false);
-			case 1: return Optional.of(true);
-			default: return Optional.empty();
-		}
+		return ModbusBus.await(isSilencedAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return An {@link Optional} containing true of false. If the modbus response is not 0 or 1 the optional will be empty.
+	 */
+	public CompletableFuture<Optional<Boolean>> isSilencedAsync() {
+		return readRegisterAsync(MultiZoneRegister.SILENCED, 0, MultiZoneDevice::toOptionalBoolean);
 	}
 	
 	/**
@@ -254,7 +928,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getHighestConcentrationZone() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2044);
+		return ModbusBus.await(getHighestConcentrationZoneAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The zone with the highest concentration of refrigerant.
+	 */
+	public CompletableFuture<Integer> getHighestConcentrationZoneAsync() {
+		return readRegisterAsync(MultiZoneRegister.HIGHEST_CONCENTRATION_ZONE, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -265,7 +948,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getHighestConcentration() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2045);
+		return ModbusBus.await(getHighestConcentrationAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The concentration, in parts per million, in the zone with the highest concentration.
+	 */
+	public CompletableFuture<Integer> getHighestConcentrationAsync() {
+		return readRegisterAsync(MultiZoneRegister.HIGHEST_CONCENTRATION, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -276,7 +968,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getZonesInstalled() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2046);
+		return ModbusBus.await(getZonesInstalledAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The number of zones installed. According to the manual this can be 4,8,12,16.
+	 */
+	public CompletableFuture<Integer> getZonesInstalledAsync() {
+		return readRegisterAsync(MultiZoneRegister.ZONES_INSTALLED, 0, Integer::valueOf);
 	}
 	
 	/**
@@ -287,9 +988,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getManifoldPressure() throws ModbusException, Exception {
-		int pressure = readSingleFunction03RegisterAsInt(2047);
-		double dPressure = pressure / 100;
-		return dPressure;
+		return ModbusBus.await(getManifoldPressureAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The manifold pressure.
+	 */
+	public CompletableFuture<Double> getManifoldPressureAsync() {
+		return readRegisterAsync(MultiZoneRegister.MANIFOLD_PRESSURE, 0, wholeScale(MultiZoneRegister.MANIFOLD_PRESSURE));
 	}
 	
 	/**
@@ -300,9 +1008,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getAmbientPressure() throws ModbusException, Exception {
-		int pressure = readSingleFunction03RegisterAsInt(2048);
-		double dPressure = pressure / 100;
-		return dPressure;
+		return ModbusBus.await(getAmbientPressureAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The ambient pressure.
+	 */
+	public CompletableFuture<Double> getAmbientPressureAsync() {
+		return readRegisterAsync(MultiZoneRegister.AMBIENT_PRESSURE, 0, wholeScale(MultiZoneRegister.AMBIENT_PRESSURE));
 	}
 	
 	/**
@@ -313,9 +1028,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getVacuumPressure() throws ModbusException, Exception {
-		int pressure = readSingleFunction03RegisterAsInt(2049);
-		double dPressure = pressure / 100;
-		return dPressure;
+		return ModbusBus.await(getVacuumPressureAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The vacuum pressure.
+	 */
+	public CompletableFuture<Double> getVacuumPressureAsync() {
+		return readRegisterAsync(MultiZoneRegister.VACUUM_PRESSURE, 0, wholeScale(MultiZoneRegister.VACUUM_PRESSURE));
 	}
 	
 	/**
@@ -326,9 +1048,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getBenchTemp() throws ModbusException, Exception {
-		int temp = readSingleFunction03RegisterAsInt(2050);
-		double dTemp = temp / 100;
-		return dTemp;
+		return ModbusBus.await(getBenchTempAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The Bench Temperature
+	 */
+	public CompletableFuture<Double> getBenchTempAsync() {
+		return readRegisterAsync(MultiZoneRegister.BENCH_TEMP, 0, wholeScale(MultiZoneRegister.BENCH_TEMP));
 	}
 	
 	/**
@@ -339,9 +1068,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getAveVoltage() throws ModbusException, Exception {
-		int volts = readSingleFunction03RegisterAsInt(2051);
-		double dVolts = volts / 1000;
-		return dVolts;
+		return ModbusBus.await(getAveVoltageAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The Ave Voltage.
+	 */
+	public CompletableFuture<Double> getAveVoltageAsync() {
+		return readRegisterAsync(MultiZoneRegister.AVE_VOLTAGE, 0, wholeScale(MultiZoneRegister.AVE_VOLTAGE));
 	}
 	
 	/**
@@ -352,9 +1088,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getZeroVolts() throws ModbusException, Exception {
-		int volts = readSingleFunction03RegisterAsInt(2052);
-		double dVolts = volts / 1000;
-		return dVolts;
+		return ModbusBus.await(getZeroVoltsAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The zero volts
+	 */
+	public CompletableFuture<Double> getZeroVoltsAsync() {
+		return readRegisterAsync(MultiZoneRegister.ZERO_VOLTS, 0, wholeScale(MultiZoneRegister.ZERO_VOLTS));
 	}
 	
 	/**
@@ -365,9 +1108,16 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public double getAveAu() throws ModbusException, Exception {
-		int aveAu = readSingleFunction03RegisterAsInt(2053);
-		double dAveAu = aveAu / 10000;
-		return dAveAu;
+		return ModbusBus.await(getAveAuAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The Ave Au value.
+	 */
+	public CompletableFuture<Double> getAveAuAsync() {
+		return readRegisterAsync(MultiZoneRegister.AVE_AU, 0, wholeScale(MultiZoneRegister.AVE_AU));
 	}
 	
 	/**
@@ -378,28 +1128,47 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getBenchPpm() throws ModbusException, Exception {
-		return readSingleFunction03RegisterAsInt(2054);
+		return ModbusBus.await(getBenchPpmAsync());
+	}
+	
+	/**
+	 * Manual Section B.4.1.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The current bench parts per million.
+	 */
+	public CompletableFuture<Integer> getBenchPpmAsync() {
+		return readRegisterAsync(MultiZoneRegister.BENCH_PPM, 0, Integer::valueOf);
 	}
 	
 	/**
 	 * Manual Section B.4.2.
-	 * This method blocks as it has to contact the modbus device.
+	 * This method only blocks when the cached configuration has expired. See {@link #getConfiguration()}.
 	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
 	 * @return An integer representing the refrigerant type. Use {@link RefrigerantType} to decode the refrigerant type.
 	 * @throws ModbusException
 	 * @throws Exception
 	 */
 	public int getRefrigerantType(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getRefrigerantTypeAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired. See {@link #getConfiguration()}.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return An integer representing the refrigerant type. Use {@link RefrigerantType} to decode the refrigerant type.
+	 */
+	public CompletableFuture<Integer> getRefrigerantTypeAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3000 + zoneNumber);
+		return configurationCache.get().thenApply(configuration -> configuration.getRefrigerantType(zoneNumber));
 	}
 	
 	/**
 	 * Manual Section B.4.2.
-	 * This method blocks as it has to contact the modbus device.
+	 * This method only blocks when the cached configuration has expired. See {@link #getConfiguration()}.
 	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
 	 * @return The current leak level setpoint for the given zone.
 	 * @throws ModbusException
@@ -407,16 +1176,27 @@ public class MultiZoneDevice {
 	 * @throws IllegalArgumentException
 	 */
 	public int getLeakLevelSetpoint(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getLeakLevelSetpointAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired. See {@link #getConfiguration()}.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The current leak level setpoint for the given zone.
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<Integer> getLeakLevelSetpointAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3016 + zoneNumber);
+		return configurationCache.get().thenApply(configuration -> configuration.getLeakLevelSetpoint(zoneNumber));
 	}
 	
 	/**
 	 * Manual Section B.4.2.
-	 * This method blocks as it has to contact the modbus device.
+	 * This method only blocks when the cached configuration has expired. See {@link #getConfiguration()}.
 	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
 	 * @return The current spill level setpoint for the given zone.
 	 * @throws ModbusException
@@ -424,16 +1204,27 @@ public class MultiZoneDevice {
 	 * @throws IllegalArgumentException
 	 */
 	public int getSpillLevelSetpoint(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getSpillLevelSetpointAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired. See {@link #getConfiguration()}.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The current spill level setpoint for the given zone.
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<Integer> getSpillLevelSetpointAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3032 + zoneNumber);
+		return configurationCache.get().thenApply(configuration -> configuration.getSpillLevelSetpoint(zoneNumber));
 	}
 	
 	/**
 	 * Manual Section B.4.2.
-	 * This method blocks as it has to contact the modbus device.
+	 * This method only blocks when the cached configuration has expired. See {@link #getConfiguration()}.
 	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
 	 * @return The current evacuation level setpoint for the given zone.
 	 * @throws ModbusException
@@ -441,16 +1232,27 @@ public class MultiZoneDevice {
 	 * @throws IllegalArgumentException
 	 */
 	public int getEvacuationLevelSetpoint(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getEvacuationLevelSetpointAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired. See {@link #getConfiguration()}.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The current evacuation level setpoint for the given zone.
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<Integer> getEvacuationLevelSetpointAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3048 + zoneNumber);
+		return configurationCache.get().thenApply(configuration -> configuration.getEvacuationLevelSetpoint(zoneNumber));
 	}
 	
 	/**
 	 * Manual Section B.4.2.
-	 * This method blocks as it has to contact the modbus device.
+	 * This method only blocks when the cached configuration has expired. See {@link #getConfiguration()}.
 	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
 	 * @return The sample tube distance setpoint.
 	 * @throws ModbusException
@@ -458,11 +1260,22 @@ public class MultiZoneDevice {
 	 * @throws IllegalArgumentException
 	 */
 	public int getSampleDistanceSetpoint(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getSampleDistanceSetpointAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is already complete unless the cached configuration has expired. See {@link #getConfiguration()}.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The sample tube distance setpoint.
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<Integer> getSampleDistanceSetpointAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3064 + zoneNumber);
+		return configurationCache.get().thenApply(configuration -> configuration.getSampleDistanceSetpoint(zoneNumber));
 	}
 	
 	/**
@@ -475,11 +1288,22 @@ public class MultiZoneDevice {
 	 * @throws IllegalArgumentException
 	 */
 	public int getAlarmAcknowledgeState(int zoneNumber) throws ModbusException, Exception, IllegalArgumentException {
+		return ModbusBus.await(getAlarmAcknowledgeStateAsync(zoneNumber));
+	}
+	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The alarm acknowledge state for the given zone. 1=Acknowledged, 0=Unacknowledged
+	 * @throws IllegalArgumentException
+	 */
+	public CompletableFuture<Integer> getAlarmAcknowledgeStateAsync(int zoneNumber) throws IllegalArgumentException {
 		if (zoneNumber < 0 || zoneNumber > 15) {
 			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
 		}
 		
-		return readSingleFunction04RegisterAsInt(3080 + zoneNumber);
+		return readRegisterAsync(MultiZoneRegister.ALARM_ACKNOWLEDGE_STATE, zoneNumber, Integer::valueOf);
 	}
 	
 	/**
@@ -490,8 +1314,24 @@ public class MultiZoneDevice {
 	 * @throws Exception
 	 */
 	public int getAllAlarmAcknowledgeState() throws ModbusException, Exception {
-		return readSingleFunction04RegisterAsInt(3096);
+		return ModbusBus.await(getAllAlarmAcknowledgeStateAsync());
 	}
 	
+	/**
+	 * Manual Section B.4.2.
+	 * This method does not block. The returned future is completed once the bus has read the device.
+	 * @return The alarm acknowledge state for all zones.
+	 */
+	public CompletableFuture<Integer> getAllAlarmAcknowledgeStateAsync() {
+		return readRegisterAsync(MultiZoneRegister.ALL_ALARM_ACKNOWLEDGE_STATE, 0, Integer::valueOf);
+	}
+	
+	private static Optional<Boolean> toOptionalBoolean(int value) {
+		switch (value) {
+			case 0: return Optional.of(false);
+			case 1: return Optional.of(true);
+			default: return Optional.empty();
+		}
+	}
 	
 }
@@ -0,0 +1,273 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls an inventory of devices spread over several serial ports and gateways.
+ * 
+ * Devices are grouped by their {@link ModbusBus}. Each cycle reads a {@link DeviceSnapshot} from every device.
+ * The buses work through their devices at the same time, while each bus still runs its own requests one at a time,
+ * so a cycle takes as long as the busiest bus rather than the whole fleet.
+ * 
+ * Like the {@link DevicePoller}, the fleet does not use a thread of its own, and each device is still polled no more often than its zone poll interval. (Manual B.3.3.)
+ * After each cycle the {@link SnapshotListener}s are called for every device, in inventory order, and then the {@link FleetListener}s are called with the {@link FleetSnapshot}.
+ * Listeners are called one cycle at a time on the default {@link CompletableFuture} async executor.
+ * An exception thrown by a listener is handed to the thread's uncaught exception handler and polling carries on.
+ * @author Justin Brubaker
+ *
+ */
+public class MultiZoneFleet {
+
+	private final LinkedHashMap<ModbusBus, List<MultiZoneDevice>> devicesByBus = new LinkedHashMap<ModbusBus, List<MultiZoneDevice>>();
+	private final CopyOnWriteArrayList<SnapshotListener> snapshotListeners = new CopyOnWriteArrayList<SnapshotListener>();
+	private final CopyOnWriteArrayList<FleetListener> fleetListeners = new CopyOnWriteArrayList<FleetListener>();
+	private volatile Duration cycleDelay = Duration.ZERO;
+	private volatile FleetSnapshot latestSnapshot;
+	private boolean running = false;
+	private long pollLoop = 0;
+	
+	/**
+	 * Adds a device to the inventory. It is polled from the next cycle.
+	 * @param device
+	 */
+	public synchronized void addDevice(MultiZoneDevice device) {
+		List<MultiZoneDevice> devices = devicesByBus.computeIfAbsent(device.getBus(), bus -> new ArrayList<MultiZoneDevice>());
+		if (!devices.contains(device)) {
+			devices.add(device);
+		}
+	}
+	
+	/**
+	 * Removes a device from the inventory. The device is not disconnected.
+	 * @param device
+	 */
+	public synchronized void removeDevice(MultiZoneDevice device) {
+		List<MultiZoneDevice> devices = devicesByBus.get(device.getBus());
+		if (devices != null && devices.remove(device) && devices.isEmpty()) {
+			devicesByBus.remove(device.getBus());
+		}
+	}
+	
+	/**
+	 * @return Every device in the inventory, in the order they were added within each bus.
+	 */
+	public synchronized List<MultiZoneDevice> getDevices() {
+		ArrayList<MultiZoneDevice> all = new ArrayList<MultiZoneDevice>();
+		for (List<MultiZoneDevice> devices : devicesByBus.values()) {
+			all.addAll(devices);
+		}
+		return all;
+	}
+	
+	/**
+	 * @return A copy of the inventory grouped by bus.
+	 */
+	public synchronized Map<ModbusBus, List<MultiZoneDevice>> getDevicesByBus() {
+		LinkedHashMap<ModbusBus, List<MultiZoneDevice>> copy = new LinkedHashMap<ModbusBus, List<MultiZoneDevice>>();
+		for (Map.Entry<ModbusBus, List<MultiZoneDevice>> entry : devicesByBus.entrySet()) {
+			copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<MultiZoneDevice>(entry.getValue())));
+		}
+		return copy;
+	}
+	
+	/**
+	 * Disconnects every device in the inventory. The fleet is stopped first.
+	 */
+	public void disconnect() {
+		stop();
+		for (MultiZoneDevice device : getDevices()) {
+			device.disconnect();
+		}
+	}
+	
+	/**
+	 * @param listener Called for every device after each cycle.
+	 */
+	public void addListener(SnapshotListener listener) {
+		snapshotListeners.add(listener);
+	}
+	
+	public void removeListener(SnapshotListener listener) {
+		snapshotListeners.remove(listener);
+	}
+	
+	/**
+	 * @param listener Called with the {@link FleetSnapshot} after each cycle.
+	 */
+	public void addFleetListener(FleetListener listener) {
+		fleetListeners.add(listener);
+	}
+	
+	public void removeFleetListener(FleetListener listener) {
+		fleetListeners.remove(listener);
+	}
+	
+	public Duration getCycleDelay() {
+		return cycleDelay;
+	}
+	
+	/**
+	 * Sets an extra delay between the end of one cycle and the start of the next.
+	 * With the default of {@link Duration#ZERO} the fleet is polled as often as the zone poll intervals allow.
+	 * @param _cycleDelay
+	 */
+	public void setCycleDelay(Duration _cycleDelay) {
+		cycleDelay = _cycleDelay;
+	}
+	
+	/**
+	 * @return The result of the last cycle, or null if no cycle has finished.
+	 */
+	public FleetSnapshot getLatestSnapshot() {
+		return latestSnapshot;
+	}
+	
+	/**
+	 * Polls every device once. This method does not block.
+	 * The listeners are not called. Use {@link #start()} for continuous polling.
+	 * @return A future that is completed once every device has been read or has failed. It never completes exceptionally.
+	 */
+	public CompletableFuture<FleetSnapshot> pollOnce() {
+		Map<ModbusBus, List<MultiZoneDevice>> inventory = getDevicesByBus();
+		Instant startedAt = Instant.now();
+		ConcurrentHashMap<MultiZoneDevice, DeviceSnapshot> snapshots = new ConcurrentHashMap<MultiZoneDevice, DeviceSnapshot>();
+		ConcurrentHashMap<MultiZoneDevice, Throwable> failures = new ConcurrentHashMap<MultiZoneDevice, Throwable>();
+		ConcurrentHashMap<ModbusBus, Duration> busCycleTimes = new ConcurrentHashMap<ModbusBus, Duration>();
+		
+		ArrayList<CompletableFuture<?>> busCycles = new ArrayList<CompletableFuture<?>>();
+		for (Map.Entry<ModbusBus, List<MultiZoneDevice>> entry : inventory.entrySet()) {
+			// The bus runs the reads one at a time in the order they are queued, while the other buses run theirs.
+			ArrayList<CompletableFuture<?>> reads = new ArrayList<CompletableFuture<?>>();
+			for (MultiZoneDevice device : entry.getValue()) {
+				reads.add(device.pollSnapshotAsync().handle((snapshot, error) -> {
+					if (snapshot != null) {
+						snapshots.put(device, snapshot);
+					} else {
+						failures.put(device, unwrap(error));
+					}
+					return null;
+				}));
+			}
+			busCycles.add(CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0]))
+					.thenRun(() -> busCycleTimes.put(entry.getKey(), Duration.between(startedAt, Instant.now()))));
+		}
+		
+		return CompletableFuture.allOf(busCycles.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			LinkedHashMap<MultiZoneDevice, DeviceSnapshot> orderedSnapshots = new LinkedHashMap<MultiZoneDevice, DeviceSnapshot>();
+			LinkedHashMap<MultiZoneDevice, Throwable> orderedFailures = new LinkedHashMap<MultiZoneDevice, Throwable>();
+			LinkedHashMap<ModbusBus, Duration> orderedTimes = new LinkedHashMap<ModbusBus, Duration>();
+			for (Map.Entry<ModbusBus, List<MultiZoneDevice>> entry : inventory.entrySet()) {
+				orderedTimes.put(entry.getKey(), busCycleTimes.get(entry.getKey()));
+				for (MultiZoneDevice device : entry.getValue()) {
+					if (snapshots.containsKey(device)) {
+						orderedSnapshots.put(device, snapshots.get(device));
+					} else {
+						orderedFailures.put(device, failures.get(device));
+					}
+				}
+			}
+			return new FleetSnapshot(startedAt, Instant.now(), orderedSnapshots, orderedFailures, orderedTimes);
+		});
+	}
+	
+	public synchronized boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Starts polling the fleet over and over. This method does not block.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		pollLoop++;
+		cycle(pollLoop);
+	}
+	
+	/**
+	 * Stops polling. Reads that are still waiting in the bus queues finish, but the listeners are not called for that cycle.
+	 */
+	public synchronized void stop() {
+		running = false;
+	}
+	
+	private synchronized void cycle(long loop) {
+		// A cycle that finishes after stop() and start() must not start a second loop.
+		if (!running || loop != pollLoop) {
+			return;
+		}
+		
+		pollOnce().thenAcceptAsync(snapshot -> {
+			synchronized (this) {
+				if (!running || loop != pollLoop) {
+					return;
+				}
+			}
+			
+			try {
+				latestSnapshot = snapshot;
+				for (Map.Entry<MultiZoneDevice, DeviceSnapshot> entry : snapshot.getSnapshots().entrySet()) {
+					for (SnapshotListener listener : snapshotListeners) {
+						try {
+							listener.onSnapshot(entry.getKey(), entry.getValue());
+						} catch (RuntimeException e) {
+							ListenerErrors.report(e);
+						}
+					}
+				}
+				for (Map.Entry<MultiZoneDevice, Throwable> entry : snapshot.getFailures().entrySet()) {
+					for (SnapshotListener listener : snapshotListeners) {
+						try {
+							listener.onPollFailed(entry.getKey(), entry.getValue());
+						} catch (RuntimeException e) {
+							ListenerErrors.report(e);
+						}
+					}
+				}
+				for (FleetListener listener : fleetListeners) {
+					try {
+						listener.onFleetSnapshot(snapshot);
+					} catch (RuntimeException e) {
+						ListenerErrors.report(e);
+					}
+				}
+			} finally {
+				scheduleNextCycle(loop, snapshot);
+			}
+		});
+	}
+	
+	private void scheduleNextCycle(long loop, FleetSnapshot last) {
+		Duration delay = cycleDelay;
+		if (delay.isZero() && last.getBusCycleTimes().isEmpty()) {
+			// Nothing to poll yet. Check the inventory again in a second instead of spinning.
+			delay = Duration.ofSeconds(1);
+		}
+		if (delay.isZero()) {
+			cycle(loop);
+		} else {
+			CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> cycle(loop));
+		}
+	}
+	
+	private static Throwable unwrap(Throwable error) {
+		if (error instanceof CompletionException && error.getCause() != null) {
+			return error.getCause();
+		}
+		return error;
+	}
+	
+}
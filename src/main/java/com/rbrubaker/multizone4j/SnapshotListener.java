@@ -0,0 +1,26 @@
+package com.rbrubaker.multizone4j;
+
+/**
+ * Receives every snapshot read by a {@link DevicePoller} or a {@link MultiZoneFleet}.
+ * @author Justin Brubaker
+ *
+ */
+public interface SnapshotListener {
+
+	/**
+	 * Called after each successful poll.
+	 * @param device The device that was polled.
+	 * @param snapshot The snapshot that was read.
+	 */
+	public void onSnapshot(MultiZoneDevice device, DeviceSnapshot snapshot);
+	
+	/**
+	 * Called when a poll fails. The poller keeps polling.
+	 * @param device The device that was polled.
+	 * @param error The reason the poll failed.
+	 */
+	public default void onPollFailed(MultiZoneDevice device, Throwable error) {
+		
+	}
+	
+}
@@ -0,0 +1,194 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Shares reads of the Manual Section B.4.1 registers between concurrent callers.
+ * A read joins any read that is queued, running, or finished within the freshness window, as long as that read covers every register it needs.
+ * Only when none does is a new read queued. So a zone status read issued while a snapshot is waiting in the bus queue costs nothing extra.
+ * A queued read is only removed from the bus queue once every caller waiting on it has cancelled.
+ * @author Justin Brubaker
+ *
+ */
+class ZoneReadCoalescer {
+
+	private final BiFunction<Integer, Integer, CompletableFuture<int[]>> loader;
+	private final ArrayList<SharedRead> reads = new ArrayList<SharedRead>();
+	private Duration freshness = Duration.ZERO;
+	
+	/**
+	 * @param _loader Queues a read of the given start register and count.
+	 */
+	ZoneReadCoalescer(BiFunction<Integer, Integer, CompletableFuture<int[]>> _loader) {
+		loader = _loader;
+	}
+	
+	synchronized Duration getFreshness() {
+		return freshness;
+	}
+	
+	synchronized void setFreshness(Duration _freshness) {
+		freshness = _freshness;
+	}
+	
+	/**
+	 * @param startAddress The first register needed.
+	 * @param count The number of registers needed.
+	 * @param decoder Converts the shared read into the caller's result.
+	 * @return A future for the decoded read. Each caller gets its own future, so one caller cancelling does not cancel the shared read.
+	 */
+	<T> CompletableFuture<T> read(int startAddress, int count, Function<RegisterRead, T> decoder) {
+		return read(startAddress, count, true, decoder);
+	}
+	
+	/**
+	 * @param startAddress The first register needed.
+	 * @param count The number of registers needed.
+	 * @param shareFinished false to only join reads that have not finished, for pollers that need a new read every time.
+	 * @param decoder Converts the shared read into the caller's result.
+	 * @return A future for the decoded read. Each caller gets its own future, so one caller cancelling does not cancel the shared read.
+	 */
+	<T> CompletableFuture<T> read(int startAddress, int count, boolean shareFinished, Function<RegisterRead, T> decoder) {
+		CompletableFuture<RegisterRead> read = read(startAddress, count, shareFinished);
+		CompletableFuture<T> result = read.thenApply(decoder);
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled()) {
+				read.cancel(false);
+			}
+		});
+		return result;
+	}
+	
+	private synchronized CompletableFuture<RegisterRead> read(int startAddress, int count, boolean shareFinished) {
+		long now = System.currentTimeMillis();
+		Iterator<SharedRead> iterator = reads.iterator();
+		while (iterator.hasNext()) {
+			SharedRead shared = iterator.next();
+			if (shared.isExpired(now, freshness)) {
+				iterator.remove();
+			} else if ((shareFinished || !shared.future.isDone()) && shared.startAddress <= startAddress && shared.startAddress + shared.count >= startAddress + count) {
+				return join(shared);
+			}
+		}
+		
+		CompletableFuture<int[]> request = loader.apply(startAddress, count);
+		CompletableFuture<RegisterRead> load = request.thenApply(values -> new RegisterRead(startAddress, values, System.currentTimeMillis()));
+		SharedRead shared = new SharedRead(startAddress, count, request, load);
+		reads.add(shared);
+		load.whenComplete((values, error) -> finishRead(shared));
+		return join(shared);
+	}
+	
+	private CompletableFuture<RegisterRead> join(SharedRead shared) {
+		if (shared.future.isDone()) {
+			return shared.future.copy();
+		}
+		
+		shared.waiting++;
+		CompletableFuture<RegisterRead> copy = shared.future.copy();
+		copy.whenComplete((values, error) -> {
+			if (copy.isCancelled()) {
+				leave(shared);
+			}
+		});
+		return copy;
+	}
+	
+	private synchronized void leave(SharedRead shared) {
+		shared.waiting--;
+		if (shared.waiting == 0 && !shared.future.isDone()) {
+			reads.remove(shared);
+			shared.request.cancel(false);
+		}
+	}
+	
+	private synchronized void finishRead(SharedRead shared) {
+		if (shared.isExpired(System.currentTimeMillis(), freshness)) {
+			reads.remove(shared);
+		}
+	}
+	
+	private static class SharedRead {
+		
+		private final int startAddress;
+		private final int count;
+		private final CompletableFuture<int[]> request;
+		private final CompletableFuture<RegisterRead> future;
+		private int waiting = 0;
+		
+		private SharedRead(int _startAddress, int _count, CompletableFuture<int[]> _request, CompletableFuture<RegisterRead> _future) {
+			startAddress = _startAddress;
+			count = _count;
+			request = _request;
+			future = _future;
+		}
+		
+		private boolean isExpired(long now, Duration freshness) {
+			if (!future.isDone()) {
+				return false;
+			}
+			if (future.isCompletedExceptionally()) {
+				return true;
+			}
+			return future.join().getReadAtMillis() + freshness.toMillis() <= now;
+		}
+		
+	}
+	
+	/**
+	 * The values of a run of registers read in one modbus transaction.
+	 */
+	static class RegisterRead {
+		
+		private final int startAddress;
+		private final int[] values;
+		private final long readAtMillis;
+		
+		private RegisterRead(int _startAddress, int[] _values, long _readAtMillis) {
+			startAddress = _startAddress;
+			values = _values;
+			readAtMillis = _readAtMillis;
+		}
+		
+		int getRegister(int address) {
+			return values[address - startAddress];
+		}
+		
+		/**
+		 * @param address The first register to copy.
+		 * @param count
+		 * @return A copy of the given registers.
+		 */
+		int[] getRegisters(int address, int count) {
+			int[] copy = new int[count];
+			System.arraycopy(values, address - startAddress, copy, 0, count);
+			return copy;
+		}
+		
+		/**
+		 * @return The values. Callers must not change them, as the array is shared.
+		 */
+		int[] getValues() {
+			return values;
+		}
+		
+		/**
+		 * @param address
+		 * @return The index of the given register in {@link #getValues()}.
+		 */
+		int indexOf(int address) {
+			return address - startAddress;
+		}
+		
+		long getReadAtMillis() {
+			return readAtMillis;
+		}
+		
+	}
+	
+}
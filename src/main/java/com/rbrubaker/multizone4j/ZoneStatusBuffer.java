@@ -0,0 +1,140 @@
+package com.rbrubaker.multizone4j;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.reference.AlarmStatus;
+
+/**
+ * A reusable holder for the ppm and alarm status of all 16 zones.
+ * Use {@link MultiZoneDevice#readAllZonesInto(ZoneStatusBuffer)} to fill the buffer in place.
+ * Unlike {@link MultiZoneDevice#getAllCurrentZoneStatuses()} this does not create a list or any {@link CurrentZoneStatus} objects, so a polling loop can reuse one buffer forever. Each read still allocates the modbus request and response, so filling a buffer is not allocation free.
+ * 
+ * This class is not thread safe. Do not read a buffer while it is being filled.
+ * @author Justin Brubaker
+ *
+ */
+public class ZoneStatusBuffer {
+
+	/**
+	 * The number of zones held by a buffer.
+	 */
+	public static final int ZONE_COUNT = 16;
+	
+	private final int[] ppm = new int[ZONE_COUNT];
+	private final int[] alarmStatus = new int[ZONE_COUNT];
+	private long polledAtMillis = 0;
+	
+	public ZoneStatusBuffer() {
+		super();
+		clear();
+	}
+	
+	/**
+	 * Sets every zone back to -1 and the poll time to 0.
+	 */
+	public void clear() {
+		for (int i = 0; i < ZONE_COUNT; i++) {
+			ppm[i] = -1;
+			alarmStatus[i] = -1;
+		}
+		polledAtMillis = 0;
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The ppm of the zone, or -1 if the buffer has not been filled.
+	 */
+	public int getPPM(int zoneNumber) {
+		return ppm[zoneNumber];
+	}
+	
+	/**
+	 * The {@link AlarmStatus} class is provided to provide easy translations of the alarm status codes.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The alarm status of the zone, or -1 if the buffer has not been filled.
+	 */
+	public int getAlarmStatus(int zoneNumber) {
+		return alarmStatus[zoneNumber];
+	}
+	
+	/**
+	 * @return The time of the last fill in milliseconds since the epoch, or 0 if the buffer has not been filled.
+	 */
+	public long getPolledAtMillis() {
+		return polledAtMillis;
+	}
+	
+	/**
+	 * This method allocates. It is only meant for logging and display.
+	 * @return The time of the last fill.
+	 */
+	public Instant getPolledAt() {
+		return Instant.ofEpochMilli(polledAtMillis);
+	}
+	
+	/**
+	 * Sets the values of one zone. This is used when a buffer is filled from somewhere other than the device, such as a journal.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param _ppm
+	 * @param _alarmStatus
+	 */
+	public void setZone(int zoneNumber, int _ppm, int _alarmStatus) {
+		ppm[zoneNumber] = _ppm;
+		alarmStatus[zoneNumber] = _alarmStatus;
+	}
+	
+	public void setPolledAtMillis(long _polledAtMillis) {
+		polledAtMillis = _polledAtMillis;
+	}
+	
+	/**
+	 * Copies the contents of another buffer into this one.
+	 * @param other
+	 */
+	public void copyFrom(ZoneStatusBuffer other) {
+		System.arraycopy(other.ppm, 0, ppm, 0, ZONE_COUNT);
+		System.arraycopy(other.alarmStatus, 0, alarmStatus, 0, ZONE_COUNT);
+		polledAtMillis = other.polledAtMillis;
+	}
+	
+	/**
+	 * Fills the buffer from a read of registers 2001-2032. The first 16 registers are the ppm values and the next 16 are the alarm statuses.
+	 * @param regs
+	 * @param _polledAtMillis
+	 */
+	void fill(int[] regs, long _polledAtMillis) {
+		fill(regs, 0, _polledAtMillis);
+	}
+	
+	/**
+	 * Fills the buffer from a read that includes registers 2001-2032.
+	 * This is how {@link MultiZoneDevice#readAllZonesInto(ZoneStatusBuffer)} fills the buffer. It can also fill it from registers read some other way.
+	 * @param regs
+	 * @param offset The index of register 2001 in regs.
+	 * @param _polledAtMillis
+	 */
+	public void fill(int[] regs, int offset, long _polledAtMillis) {
+		for (int i = 0; i < ZONE_COUNT; i++) {
+			ppm[i] = regs[offset + i];
+			alarmStatus[i] = regs[offset + ZONE_COUNT + i];
+		}
+		polledAtMillis = _polledAtMillis;
+	}
+	
+	/**
+	 * Fills a run of zones from reads of their ppm and alarm registers. The two runs can come from one read or from two.
+	 * @param firstZone The first zone read. Zone numbers start with 0.
+	 * @param zoneCount The number of zones read.
+	 * @param ppmRegs The registers holding the ppm of the zones.
+	 * @param ppmOffset The index of firstZone's ppm in ppmRegs.
+	 * @param alarmRegs The registers holding the alarm status of the zones.
+	 * @param alarmOffset The index of firstZone's alarm status in alarmRegs.
+	 * @param _polledAtMillis
+	 */
+	void fillZones(int firstZone, int zoneCount, int[] ppmRegs, int ppmOffset, int[] alarmRegs, int alarmOffset, long _polledAtMillis) {
+		System.arraycopy(ppmRegs, ppmOffset, ppm, firstZone, zoneCount);
+		System.arraycopy(alarmRegs, alarmOffset, alarmStatus, firstZone, zoneCount);
+		polledAtMillis = _polledAtMillis;
+	}
+	
+}
@@ -0,0 +1,67 @@
+package com.rbrubaker.multizone4j.discovery;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+
+/**
+ * A Bacharach MultiZone device found by a {@link MultiZoneDiscovery} scan. This class is immutable.
+ * @author Justin Brubaker
+ *
+ */
+public class DiscoveredDevice {
+
+	private final String portName;
+	private final int baudRate;
+	private final int modbusAddress;
+	private final int zonesInstalled;
+	
+	DiscoveredDevice(String _portName, int _baudRate, int _modbusAddress, int _zonesInstalled) {
+		super();
+		portName = _portName;
+		baudRate = _baudRate;
+		modbusAddress = _modbusAddress;
+		zonesInstalled = _zonesInstalled;
+	}
+	
+	/**
+	 * @return The serial port or transport name the device was found on.
+	 */
+	public String getPortName() {
+		return portName;
+	}
+	
+	/**
+	 * @return The baud rate the device answered at, or 0 if it was found through a network transport.
+	 */
+	public int getBaudRate() {
+		return baudRate;
+	}
+	
+	public int getModbusAddress() {
+		return modbusAddress;
+	}
+	
+	/**
+	 * @return 4, 8, 12 or 16.
+	 */
+	public int getZonesInstalled() {
+		return zonesInstalled;
+	}
+	
+	/**
+	 * Creates a device for a unit found on a serial port.
+	 * @return A new {@link MultiZoneDevice} on the shared bus of the port.
+	 * @throws IllegalStateException If the device was not found on a serial port.
+	 */
+	public MultiZoneDevice createDevice() throws IllegalStateException {
+		if (baudRate == 0) {
+			throw new IllegalStateException("The device was found through " + portName + ". Create it with the bus for that transport.");
+		}
+		return new MultiZoneDevice(modbusAddress, portName, baudRate);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("MultiZone at address %d on %s%s with %d zones", modbusAddress, portName, baudRate == 0 ? "" : " (" + baudRate + " baud)", zonesInstalled);
+	}
+	
+}
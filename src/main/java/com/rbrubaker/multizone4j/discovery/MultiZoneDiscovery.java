@@ -0,0 +1,205 @@
+package com.rbrubaker.multizone4j.discovery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.ModbusBus;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+import com.rbrubaker.multizone4j.transport.SerialRtuTransport;
+
+/**
+ * Finds Bacharach MultiZone devices by scanning a range of modbus addresses.
+ * 
+ * Each address gets one probe, a read of registers 2036-2046 with a short timeout and no retries.
+ * An address is reported as a MultiZone when the zones installed register (2046) is 4, 8, 12 or 16 and the active zone register (2036) is not above it.
+ * Addresses that do not answer cost one probe timeout, so narrowing the address range is the best way to speed up a scan.
+ * 
+ * Every port is scanned on its own thread, so scanning several ports or gateways takes as long as the slowest one.
+ * Ports must not be in use by a {@link ModbusBus} while they are scanned.
+ * @author Justin Brubaker
+ *
+ */
+public class MultiZoneDiscovery {
+
+	/**
+	 * The baud rates tried when none are given. 19200 is the MultiZone default.
+	 */
+	public static final int[] DEFAULT_BAUD_RATES = {19200, 9600};
+	
+	private static final int PROBE_START = MultiZoneRegister.ACTIVE_ZONE.getAddress();
+	private static final int PROBE_COUNT = MultiZoneRegister.ZONES_INSTALLED.getAddress() - PROBE_START + 1;
+	
+	private volatile int firstAddress = 1;
+	private volatile int lastAddress = 247;
+	private volatile Duration probeTimeout = Duration.ofMillis(100);
+	private volatile Consumer<DiscoveredDevice> listener;
+	
+	public int getFirstAddress() {
+		return firstAddress;
+	}
+	
+	public int getLastAddress() {
+		return lastAddress;
+	}
+	
+	/**
+	 * @param _firstAddress The lowest address probed. The default is 1.
+	 * @param _lastAddress The highest address probed. The default is 247.
+	 * @throws IllegalArgumentException If the range is not within 1-247.
+	 */
+	public void setAddressRange(int _firstAddress, int _lastAddress) throws IllegalArgumentException {
+		if (_firstAddress < 1 || _lastAddress > 247 || _firstAddress > _lastAddress) {
+			throw new IllegalArgumentException("The address range must be within 1-247.");
+		}
+		firstAddress = _firstAddress;
+		lastAddress = _lastAddress;
+	}
+	
+	public Duration getProbeTimeout() {
+		return probeTimeout;
+	}
+	
+	/**
+	 * @param _probeTimeout How long to wait for each address to answer. This must cover a 27 byte response at the slowest baud rate scanned.
+	 */
+	public void setProbeTimeout(Duration _probeTimeout) {
+		probeTimeout = _probeTimeout;
+	}
+	
+	/**
+	 * @param _listener Called on the scanning thread as soon as each device is found. Can be null.
+	 */
+	public void setListener(Consumer<DiscoveredDevice> _listener) {
+		listener = _listener;
+	}
+	
+	/**
+	 * Scans serial ports at each of the given baud rates. The ports are scanned at the same time.
+	 * This method blocks until every port has been scanned.
+	 * @param serialDeviceNames The serial port names. Ex. /dev/serial1
+	 * @param baudRates The baud rates to try on every port. {@link #DEFAULT_BAUD_RATES} are used if none are given.
+	 * @return Every device found, grouped by port in the order the ports were given.
+	 * @throws Exception If a port could not be opened.
+	 */
+	public List<DiscoveredDevice> scanSerialPorts(List<String> serialDeviceNames, int... baudRates) throws Exception {
+		int[] bauds = baudRates.length == 0 ? DEFAULT_BAUD_RATES : baudRates;
+		ArrayList<CompletableFuture<List<DiscoveredDevice>>> scans = new ArrayList<CompletableFuture<List<DiscoveredDevice>>>();
+		for (String port : serialDeviceNames) {
+			scans.add(CompletableFuture.supplyAsync(() -> {
+				ArrayList<DiscoveredDevice> found = new ArrayList<DiscoveredDevice>();
+				for (int baud : bauds) {
+					found.addAll(scanUnchecked(new SerialRtuTransport(port, baud), baud));
+				}
+				return found;
+			}, threadPerScan(port)));
+		}
+		return join(scans);
+	}
+	
+	/**
+	 * Scans network transports, such as {@link com.rbrubaker.multizone4j.transport.TcpTransport}s for several gateways. The transports are scanned at the same time.
+	 * This method blocks until every transport has been scanned.
+	 * @param transports Transports that are not connected yet.
+	 * @return Every device found, grouped by transport in the order they were given.
+	 * @throws Exception If a transport could not be connected.
+	 */
+	public List<DiscoveredDevice> scanTransports(List<? extends ModbusTransport> transports) throws Exception {
+		ArrayList<CompletableFuture<List<DiscoveredDevice>>> scans = new ArrayList<CompletableFuture<List<DiscoveredDevice>>>();
+		for (ModbusTransport transport : transports) {
+			int baud = transport instanceof SerialRtuTransport ? ((SerialRtuTransport) transport).getBaudRate() : 0;
+			scans.add(CompletableFuture.supplyAsync(() -> scanUnchecked(transport, baud), threadPerScan(transport.getName())));
+		}
+		return join(scans);
+	}
+	
+	/**
+	 * Scans one transport on the calling thread.
+	 * @param transport A transport that is not connected yet. It is disconnected when the scan is done.
+	 * @param baudRate The baud rate to report for the devices found, or 0 for a network transport.
+	 * @return Every device found, in address order.
+	 * @throws Exception If the transport could not be connected.
+	 */
+	public List<DiscoveredDevice> scan(ModbusTransport transport, int baudRate) throws Exception {
+		ArrayList<DiscoveredDevice> found = new ArrayList<DiscoveredDevice>();
+		transport.connect();
+		try {
+			transport.setTimeout((int) probeTimeout.toMillis());
+			for (int address = firstAddress; address <= lastAddress; address++) {
+				DiscoveredDevice device = probe(transport, address, baudRate);
+				if (device != null) {
+					found.add(device);
+					Consumer<DiscoveredDevice> current = listener;
+					if (current != null) {
+						current.accept(device);
+					}
+				}
+			}
+		} finally {
+			transport.disconnect();
+		}
+		return found;
+	}
+	
+	private DiscoveredDevice probe(ModbusTransport transport, int address, int baudRate) {
+		int[] regs;
+		try {
+			regs = transport.readHoldingRegisters(address, PROBE_START, PROBE_COUNT);
+		} catch (ModbusException e) {
+			// No answer, a corrupt answer or an exception response. Either way it is not a MultiZone.
+			return null;
+		}
+		
+		int activeZone = regs[0];
+		int zonesInstalled = regs[PROBE_COUNT - 1];
+		boolean validZoneCount = zonesInstalled == 4 || zonesInstalled == 8 || zonesInstalled == 12 || zonesInstalled == 16;
+		if (!validZoneCount || activeZone < 0 || activeZone > zonesInstalled) {
+			return null;
+		}
+		return new DiscoveredDevice(transport.getName(), baudRate, address, zonesInstalled);
+	}
+	
+	private List<DiscoveredDevice> scanUnchecked(ModbusTransport transport, int baudRate) {
+		try {
+			return scan(transport, baudRate);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not scan " + transport.getName() + ".", e);
+		}
+	}
+	
+	private static Executor threadPerScan(String name) {
+		return task -> {
+			Thread thread = new Thread(task, "MultiZoneDiscovery-" + name);
+			thread.setDaemon(true);
+			thread.start();
+		};
+	}
+	
+	private static List<DiscoveredDevice> join(List<CompletableFuture<List<DiscoveredDevice>>> scans) throws Exception {
+		ArrayList<DiscoveredDevice> found = new ArrayList<DiscoveredDevice>();
+		for (CompletableFuture<List<DiscoveredDevice>> scan : scans) {
+			try {
+				found.addAll(scan.get());
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IllegalStateException && cause.getCause() instanceof Exception) {
+					throw (Exception) cause.getCause();
+				}
+				if (cause instanceof Exception) {
+					throw (Exception) cause;
+				}
+				throw e;
+			}
+		}
+		return found;
+	}
+	
+}
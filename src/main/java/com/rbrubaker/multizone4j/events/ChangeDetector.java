@@ -0,0 +1,160 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.rbrubaker.multizone4j.DevicePoller;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.ListenerErrors;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.SnapshotListener;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * Compares each snapshot from a {@link DevicePoller} with the previous one for the same device and only sends events for what changed.
+ * One detector can be added to the pollers of many devices.
+ * 
+ * A ppm event is sent when a zone has moved at least the ppm delta away from the ppm in the last event for that zone, so slow drifts are still reported.
+ * Alarm status, fault code and current state events are sent on every change.
+ * The first snapshot of each device sends an event for everything, with a previous value of -1.
+ * 
+ * Listeners are called after the detector has recorded the snapshot, without holding its lock. A listener that throws is reported with {@link ListenerErrors} and the other listeners still get the event.
+ * @author Justin Brubaker
+ *
+ */
+public class ChangeDetector implements SnapshotListener {
+
+	/**
+	 * The default change in ppm needed to send a {@link ZonePpmChangedEvent}.
+	 */
+	public static final int DEFAULT_PPM_DELTA = 5;
+	
+	private final CopyOnWriteArrayList<DeviceEventListener> listeners = new CopyOnWriteArrayList<DeviceEventListener>();
+	private final HashMap<MultiZoneDevice, DeviceState> states = new HashMap<MultiZoneDevice, DeviceState>();
+	private final int[] ppmDeltas = new int[16];
+	
+	public ChangeDetector() {
+		this(DEFAULT_PPM_DELTA);
+	}
+	
+	/**
+	 * @param ppmDelta The change in ppm needed to send a {@link ZonePpmChangedEvent} for every zone.
+	 */
+	public ChangeDetector(int ppmDelta) {
+		super();
+		for (int i = 0; i < 16; i++) {
+			ppmDeltas[i] = ppmDelta;
+		}
+	}
+	
+	public void addListener(DeviceEventListener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener(DeviceEventListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Sets the change in ppm needed to send a {@link ZonePpmChangedEvent} for one zone.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param ppmDelta
+	 */
+	public synchronized void setPpmDelta(int zoneNumber, int ppmDelta) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		ppmDeltas[zoneNumber] = ppmDelta;
+	}
+	
+	/**
+	 * Forgets everything known about a device. The next snapshot of the device is treated as the first.
+	 * @param device
+	 */
+	public synchronized void reset(MultiZoneDevice device) {
+		states.remove(device);
+	}
+	
+	@Override
+	public void onSnapshot(MultiZoneDevice device, DeviceSnapshot snapshot) {
+		// The events are found under the lock but sent outside it, so a slow listener does not hold up the pollers of other buses.
+		ArrayList<DeviceEvent> events = findChanges(device, snapshot);
+		for (DeviceEvent event : events) {
+			for (DeviceEventListener listener : listeners) {
+				try {
+					deliver(event, listener);
+				} catch (RuntimeException e) {
+					ListenerErrors.report(e);
+				}
+			}
+		}
+	}
+	
+	private synchronized ArrayList<DeviceEvent> findChanges(MultiZoneDevice device, DeviceSnapshot snapshot) {
+		ArrayList<DeviceEvent> events = new ArrayList<DeviceEvent>();
+		DeviceState state = states.get(device);
+		if (state == null) {
+			state = new DeviceState();
+			states.put(device, state);
+		}
+		
+		for (int zone = 0; zone < 16; zone++) {
+			int ppm = snapshot.getRegister(MultiZoneRegister.ZONE_PPM.getAddress(zone));
+			if (state.reportedPpm[zone] == -1 || Math.abs(ppm - state.reportedPpm[zone]) >= ppmDeltas[zone]) {
+				events.add(new ZonePpmChangedEvent(device, snapshot.getTakenAt(), zone, state.reportedPpm[zone], ppm));
+				state.reportedPpm[zone] = ppm;
+			}
+			
+			int alarmStatus = snapshot.getRegister(MultiZoneRegister.ZONE_ALARM_STATUS.getAddress(zone));
+			if (alarmStatus != state.alarmStatus[zone]) {
+				events.add(new ZoneAlarmChangedEvent(device, snapshot.getTakenAt(), zone, state.alarmStatus[zone], alarmStatus));
+				state.alarmStatus[zone] = alarmStatus;
+			}
+		}
+		
+		int faultCode = snapshot.getFaultCode();
+		if (faultCode != state.faultCode) {
+			events.add(new FaultCodeChangedEvent(device, snapshot.getTakenAt(), state.faultCode, faultCode));
+			state.faultCode = faultCode;
+		}
+		
+		int currentState = snapshot.getCurrentState();
+		if (currentState != state.currentState) {
+			events.add(new CurrentStateChangedEvent(device, snapshot.getTakenAt(), state.currentState, currentState));
+			state.currentState = currentState;
+		}
+		return events;
+	}
+	
+	private static void deliver(DeviceEvent event, DeviceEventListener listener) {
+		if (event instanceof ZonePpmChangedEvent) {
+			listener.onZonePpmChanged((ZonePpmChangedEvent) event);
+		} else if (event instanceof ZoneAlarmChangedEvent) {
+			listener.onZoneAlarmChanged((ZoneAlarmChangedEvent) event);
+		} else if (event instanceof FaultCodeChangedEvent) {
+			listener.onFaultCodeChanged((FaultCodeChangedEvent) event);
+		} else if (event instanceof CurrentStateChangedEvent) {
+			listener.onCurrentStateChanged((CurrentStateChangedEvent) event);
+		}
+	}
+	
+	/**
+	 * The last reported values of one device.
+	 */
+	private static class DeviceState {
+		
+		private final int[] reportedPpm = new int[16];
+		private final int[] alarmStatus = new int[16];
+		private int faultCode = -1;
+		private int currentState = -1;
+		
+		private DeviceState() {
+			for (int i = 0; i < 16; i++) {
+				reportedPpm[i] = -1;
+				alarmStatus[i] = -1;
+			}
+		}
+	}
+	
+}
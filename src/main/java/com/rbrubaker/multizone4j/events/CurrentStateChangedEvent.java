@@ -0,0 +1,40 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.reference.CurrentState;
+
+/**
+ * Sent when the current state (register 2034) changes. Use {@link CurrentState} to decode the states.
+ * @author Justin Brubaker
+ *
+ */
+public class CurrentStateChangedEvent extends DeviceEvent {
+
+	private final int previousState;
+	private final int state;
+	
+	public CurrentStateChangedEvent(MultiZoneDevice _device, Instant _occurredAt, int _previousState, int _state) {
+		super(_device, _occurredAt);
+		previousState = _previousState;
+		state = _state;
+	}
+	
+	/**
+	 * @return The previous state, or -1 if this is the first snapshot of the device.
+	 */
+	public int getPreviousState() {
+		return previousState;
+	}
+	
+	public int getState() {
+		return state;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Current state changed from %s to %s", CurrentState.getValueOf(previousState), CurrentState.getValueOf(state));
+	}
+	
+}
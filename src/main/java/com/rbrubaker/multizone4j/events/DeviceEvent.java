@@ -0,0 +1,37 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+
+/**
+ * The base class of the events sent by a {@link ChangeDetector}.
+ * @author Justin Brubaker
+ *
+ */
+public abstract class DeviceEvent {
+
+	private final MultiZoneDevice device;
+	private final Instant occurredAt;
+	
+	protected DeviceEvent(MultiZoneDevice _device, Instant _occurredAt) {
+		super();
+		device = _device;
+		occurredAt = _occurredAt;
+	}
+	
+	/**
+	 * @return The device the change happened on.
+	 */
+	public MultiZoneDevice getDevice() {
+		return device;
+	}
+	
+	/**
+	 * @return The time of the snapshot that the change was seen in.
+	 */
+	public Instant getOccurredAt() {
+		return occurredAt;
+	}
+	
+}
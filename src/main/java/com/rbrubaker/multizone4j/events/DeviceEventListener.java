@@ -0,0 +1,27 @@
+package com.rbrubaker.multizone4j.events;
+
+/**
+ * Receives the events sent by a {@link ChangeDetector}.
+ * Every method does nothing by default, so only the events of interest need to be implemented.
+ * @author Justin Brubaker
+ *
+ */
+public interface DeviceEventListener {
+
+	public default void onZonePpmChanged(ZonePpmChangedEvent event) {
+		
+	}
+	
+	public default void onZoneAlarmChanged(ZoneAlarmChangedEvent event) {
+		
+	}
+	
+	public default void onFaultCodeChanged(FaultCodeChangedEvent event) {
+		
+	}
+	
+	public default void onCurrentStateChanged(CurrentStateChangedEvent event) {
+		
+	}
+	
+}
@@ -0,0 +1,42 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+
+/**
+ * Sent when the fault code (register 2000) changes. See Manual Section 4.6 for information on decoding system faults.
+ * @author Justin Brubaker
+ *
+ */
+public class FaultCodeChangedEvent extends DeviceEvent {
+
+	private final int previousFaultCode;
+	private final int faultCode;
+	
+	public FaultCodeChangedEvent(MultiZoneDevice _device, Instant _occurredAt, int _previousFaultCode, int _faultCode) {
+		super(_device, _occurredAt);
+		previousFaultCode = _previousFaultCode;
+		faultCode = _faultCode;
+	}
+	
+	/**
+	 * @return The previous fault code, or -1 if this is the first snapshot of the device.
+	 */
+	public int getPreviousFaultCode() {
+		return previousFaultCode;
+	}
+	
+	/**
+	 * @return The new fault code. No faults is a value of 0000.
+	 */
+	public int getFaultCode() {
+		return faultCode;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Fault code changed from %04d to %04d", previousFaultCode, faultCode);
+	}
+	
+}
@@ -0,0 +1,49 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.reference.AlarmStatus;
+
+/**
+ * Sent when the alarm status of a zone changes. Use {@link AlarmStatus} to decode the alarm statuses.
+ * @author Justin Brubaker
+ *
+ */
+public class ZoneAlarmChangedEvent extends DeviceEvent {
+
+	private final int zoneNumber;
+	private final int previousAlarmStatus;
+	private final int alarmStatus;
+	
+	public ZoneAlarmChangedEvent(MultiZoneDevice _device, Instant _occurredAt, int _zoneNumber, int _previousAlarmStatus, int _alarmStatus) {
+		super(_device, _occurredAt);
+		zoneNumber = _zoneNumber;
+		previousAlarmStatus = _previousAlarmStatus;
+		alarmStatus = _alarmStatus;
+	}
+	
+	/**
+	 * @return The zone number. Zone numbers start with 0. So zone 1 is zonenumber=0.
+	 */
+	public int getZoneNumber() {
+		return zoneNumber;
+	}
+	
+	/**
+	 * @return The previous alarm status, or -1 if this is the first snapshot of the device.
+	 */
+	public int getPreviousAlarmStatus() {
+		return previousAlarmStatus;
+	}
+	
+	public int getAlarmStatus() {
+		return alarmStatus;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Zone %s alarm changed from %s to %s", (zoneNumber + 1) + "", AlarmStatus.getValueOf(previousAlarmStatus), AlarmStatus.getValueOf(alarmStatus));
+	}
+	
+}
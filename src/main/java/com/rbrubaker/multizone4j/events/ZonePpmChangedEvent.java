@@ -0,0 +1,48 @@
+package com.rbrubaker.multizone4j.events;
+
+import java.time.Instant;
+
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+
+/**
+ * Sent when the ppm of a zone has moved at least the configured delta away from the last reported ppm.
+ * @author Justin Brubaker
+ *
+ */
+public class ZonePpmChangedEvent extends DeviceEvent {
+
+	private final int zoneNumber;
+	private final int previousPpm;
+	private final int ppm;
+	
+	public ZonePpmChangedEvent(MultiZoneDevice _device, Instant _occurredAt, int _zoneNumber, int _previousPpm, int _ppm) {
+		super(_device, _occurredAt);
+		zoneNumber = _zoneNumber;
+		previousPpm = _previousPpm;
+		ppm = _ppm;
+	}
+	
+	/**
+	 * @return The zone number. Zone numbers start with 0. So zone 1 is zonenumber=0.
+	 */
+	public int getZoneNumber() {
+		return zoneNumber;
+	}
+	
+	/**
+	 * @return The last reported ppm, or -1 if this is the first snapshot of the device.
+	 */
+	public int getPreviousPpm() {
+		return previousPpm;
+	}
+	
+	public int getPpm() {
+		return ppm;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Zone %s ppm changed from %s to %s", (zoneNumber + 1) + "", previousPpm + "", ppm + "");
+	}
+	
+}
@@ -0,0 +1,268 @@
+package com.rbrubaker.multizone4j.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import com.rbrubaker.multizone4j.DevicePoller;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.FleetListener;
+import com.rbrubaker.multizone4j.FleetSnapshot;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.MultiZoneFleet;
+import com.rbrubaker.multizone4j.SnapshotListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the latest polled {@link DeviceSnapshot} of every device in the OpenMetrics (Prometheus) text format.
+ * 
+ * The exporter never contacts the devices. Add it to a {@link DevicePoller} with addListener, or to a {@link MultiZoneFleet} with addFleetListener.
+ * The text is rendered once when new snapshots arrive, so a scrape only copies the rendered bytes and costs the same no matter how often Prometheus scrapes.
+ * A fleet is rendered once per cycle. A poller is rendered once per snapshot.
+ * 
+ * Every sample is labelled with the bus name and modbus address of the device. Zone samples also have a zone label, starting with 1.
+ * A device whose last poll failed has multizone_up set to 0 and no other samples.
+ * @author Justin Brubaker
+ *
+ */
+public class OpenMetricsExporter implements SnapshotListener, FleetListener {
+
+	/**
+	 * The content type of the OpenMetrics text format.
+	 */
+	public static final String OPENMETRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+	/**
+	 * The content type of the older Prometheus text format, which is served to scrapers that do not ask for OpenMetrics.
+	 */
+	public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	
+	private static final Comparator<MultiZoneDevice> DEVICE_ORDER = Comparator.comparing((MultiZoneDevice device) -> device.getBus().getName()).thenComparingInt(MultiZoneDevice::getModbusAddress);
+	
+	private final InetSocketAddress address;
+	private final ConcurrentHashMap<MultiZoneDevice, DeviceState> devices = new ConcurrentHashMap<MultiZoneDevice, DeviceState>();
+	private volatile byte[] prometheusText = new byte[0];
+	private volatile byte[] openMetricsText = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+	private HttpServer server;
+	
+	/**
+	 * @param port The port to serve /metrics on. All local addresses are used.
+	 */
+	public OpenMetricsExporter(int port) {
+		this(new InetSocketAddress(port));
+	}
+	
+	/**
+	 * @param _address The address to serve /metrics on.
+	 */
+	public OpenMetricsExporter(InetSocketAddress _address) {
+		super();
+		address = _address;
+	}
+	
+	/**
+	 * Starts the http server. This method does not block.
+	 * @throws IOException If the address can not be bound.
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			return;
+		}
+		server = HttpServer.create(address, 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+	}
+	
+	/**
+	 * Stops the http server. The latest text is kept.
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+	
+	/**
+	 * @return The address the server is listening on, or null if it is not running.
+	 */
+	public synchronized InetSocketAddress getAddress() {
+		return server == null ? null : server.getAddress();
+	}
+	
+	/**
+	 * @return The rendered OpenMetrics text, for serving it from your own http server.
+	 */
+	public String getOpenMetricsText() {
+		return new String(openMetricsText, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Stops exporting a device, such as one that was removed from a fleet.
+	 * @param device
+	 */
+	public void removeDevice(MultiZoneDevice device) {
+		devices.remove(device);
+		render();
+	}
+	
+	@Override
+	public void onSnapshot(MultiZoneDevice device, DeviceSnapshot snapshot) {
+		devices.put(device, new DeviceState(snapshot));
+		render();
+	}
+	
+	@Override
+	public void onPollFailed(MultiZoneDevice device, Throwable error) {
+		devices.put(device, new DeviceState(null));
+		render();
+	}
+	
+	@Override
+	public void onFleetSnapshot(FleetSnapshot snapshot) {
+		for (Map.Entry<MultiZoneDevice, DeviceSnapshot> entry : snapshot.getSnapshots().entrySet()) {
+			devices.put(entry.getKey(), new DeviceState(entry.getValue()));
+		}
+		for (MultiZoneDevice device : snapshot.getFailures().keySet()) {
+			devices.put(device, new DeviceState(null));
+		}
+		render();
+	}
+	
+	private synchronized void render() {
+		ArrayList<MultiZoneDevice> order = new ArrayList<MultiZoneDevice>(devices.keySet());
+		order.sort(DEVICE_ORDER);
+		ArrayList<DeviceState> states = new ArrayList<DeviceState>();
+		ArrayList<String> labels = new ArrayList<String>();
+		for (MultiZoneDevice device : order) {
+			DeviceState state = devices.get(device);
+			if (state != null) {
+				states.add(state);
+				labels.add("bus=\"" + escape(device.getBus().getName()) + "\",address=\"" + device.getModbusAddress() + "\"");
+			}
+		}
+		
+		StringBuilder text = new StringBuilder(4096 + states.size() * 4096);
+		header(text, "multizone_up", "Whether the last poll of the device succeeded.");
+		for (int i = 0; i < states.size(); i++) {
+			sample(text, "multizone_up", labels.get(i), states.get(i).snapshot == null ? 0 : 1);
+		}
+		
+		header(text, "multizone_zone_ppm", "The latest concentration of each zone in ppm.");
+		for (int i = 0; i < states.size(); i++) {
+			DeviceSnapshot snapshot = states.get(i).snapshot;
+			if (snapshot != null) {
+				for (int zone = 0; zone < 16; zone++) {
+					sample(text, "multizone_zone_ppm", labels.get(i) + ",zone=\"" + (zone + 1) + "\"", snapshot.getCurrentZoneStatus(zone).getPPM());
+				}
+			}
+		}
+		
+		header(text, "multizone_zone_alarm_status", "The alarm status of each zone. 0 is no alarm.");
+		for (int i = 0; i < states.size(); i++) {
+			DeviceSnapshot snapshot = states.get(i).snapshot;
+			if (snapshot != null) {
+				for (int zone = 0; zone < 16; zone++) {
+					sample(text, "multizone_zone_alarm_status", labels.get(i) + ",zone=\"" + (zone + 1) + "\"", snapshot.getCurrentZoneStatus(zone).getAlarmStatus());
+				}
+			}
+		}
+		
+		family(text, states, labels, "multizone_max_alarm", "The highest unacknowledged alarm level across all zones.", DeviceSnapshot::getMaxAlarm);
+		family(text, states, labels, "multizone_active_alarm_count", "The number of zones with alarms active.", DeviceSnapshot::getActiveAlarmCount);
+		family(text, states, labels, "multizone_acknowledged_alarm_count", "The number of zones with alarms that have been acknowledged.", DeviceSnapshot::getAcknowledgedAlarmCount);
+		family(text, states, labels, "multizone_fault_code", "The fault code. 0 is no faults.", DeviceSnapshot::getFaultCode);
+		family(text, states, labels, "multizone_fault_code_status", "The fault code status.", DeviceSnapshot::getFaultCodeStatus);
+		family(text, states, labels, "multizone_operating_mode", "The current operating mode.", DeviceSnapshot::getCurrentOperatingMode);
+		family(text, states, labels, "multizone_current_state", "The current state.", DeviceSnapshot::getCurrentState);
+		family(text, states, labels, "multizone_active_zone", "The zone being sampled, starting with 1.", DeviceSnapshot::getActiveZone);
+		family(text, states, labels, "multizone_highest_concentration_ppm", "The highest concentration across all zones in ppm.", DeviceSnapshot::getHighestConcentration);
+		family(text, states, labels, "multizone_zones_installed", "The number of zones installed.", DeviceSnapshot::getZonesInstalled);
+		family(text, states, labels, "multizone_manifold_pressure", "The manifold pressure.", DeviceSnapshot::getManifoldPressure);
+		family(text, states, labels, "multizone_ambient_pressure", "The ambient pressure.", DeviceSnapshot::getAmbientPressure);
+		family(text, states, labels, "multizone_vacuum_pressure", "The vacuum pressure.", DeviceSnapshot::getVacuumPressure);
+		family(text, states, labels, "multizone_bench_temperature", "The bench temperature.", DeviceSnapshot::getBenchTemp);
+		family(text, states, labels, "multizone_average_voltage", "The average voltage.", DeviceSnapshot::getAveVoltage);
+		family(text, states, labels, "multizone_zero_voltage", "The zero voltage.", DeviceSnapshot::getZeroVolts);
+		family(text, states, labels, "multizone_average_absorbance", "The average absorbance units.", DeviceSnapshot::getAveAu);
+		family(text, states, labels, "multizone_bench_ppm", "The bench concentration in ppm.", DeviceSnapshot::getBenchPpm);
+		family(text, states, labels, "multizone_snapshot_timestamp_seconds", "The time the snapshot was read from the device.", snapshot -> snapshot.getTakenAt().toEpochMilli() / 1000.0);
+		
+		prometheusText = text.toString().getBytes(StandardCharsets.UTF_8);
+		openMetricsText = text.append("# EOF\n").toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static void family(StringBuilder text, ArrayList<DeviceState> states, ArrayList<String> labels, String name, String help, ToDoubleFunction<DeviceSnapshot> value) {
+		header(text, name, help);
+		for (int i = 0; i < states.size(); i++) {
+			DeviceSnapshot snapshot = states.get(i).snapshot;
+			if (snapshot != null) {
+				sample(text, name, labels.get(i), value.applyAsDouble(snapshot));
+			}
+		}
+	}
+	
+	private static void header(StringBuilder text, String name, String help) {
+		text.append("# TYPE ").append(name).append(" gauge\n");
+		text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+	}
+	
+	private static void sample(StringBuilder text, String name, String labels, double value) {
+		text.append(name).append('{').append(labels).append("} ");
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			text.append((long) value);
+		} else {
+			text.append(value);
+		}
+		text.append('\n');
+	}
+	
+	private static String escape(String labelValue) {
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!method.equals("GET") && !method.equals("HEAD")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			
+			String accept = exchange.getRequestHeaders().getFirst("Accept");
+			boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+			byte[] body = openMetrics ? openMetricsText : prometheusText;
+			exchange.getResponseHeaders().set("Content-Type", openMetrics ? OPENMETRICS_CONTENT_TYPE : PROMETHEUS_CONTENT_TYPE);
+			if (method.equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	private static class DeviceState {
+		
+		/**
+		 * The latest snapshot, or null if the last poll failed.
+		 */
+		private final DeviceSnapshot snapshot;
+		
+		private DeviceState(DeviceSnapshot _snapshot) {
+			snapshot = _snapshot;
+		}
+		
+	}
+	
+}
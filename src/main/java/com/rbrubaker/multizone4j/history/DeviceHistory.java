@@ -0,0 +1,60 @@
+package com.rbrubaker.multizone4j.history;
+
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * The ppm history of all 16 zones of one device.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceHistory {
+
+	private final ZoneHistory[] zones = new ZoneHistory[16];
+	
+	/**
+	 * @param rawCapacity The number of raw samples kept per zone.
+	 * @param minuteCapacity The number of 1 minute buckets kept per zone.
+	 * @param hourCapacity The number of 1 hour buckets kept per zone.
+	 */
+	public DeviceHistory(int rawCapacity, int minuteCapacity, int hourCapacity) {
+		super();
+		for (int i = 0; i < zones.length; i++) {
+			zones[i] = new ZoneHistory(rawCapacity, minuteCapacity, hourCapacity);
+		}
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @return The history of the zone.
+	 */
+	public ZoneHistory getZone(int zoneNumber) throws IllegalArgumentException {
+		if (zoneNumber < 0 || zoneNumber > 15) {
+			throw new IllegalArgumentException("The zone number must be between 0-15. The zone number is base 0. Ex. Zone 1 = zoneNumber=0");
+		}
+		return zones[zoneNumber];
+	}
+	
+	/**
+	 * Records the ppm of every zone in the snapshot.
+	 * @param snapshot
+	 */
+	public void record(DeviceSnapshot snapshot) {
+		long timeMillis = snapshot.getTakenAt().toEpochMilli();
+		for (int i = 0; i < zones.length; i++) {
+			zones[i].record(timeMillis, snapshot.getRegister(MultiZoneRegister.ZONE_PPM.getAddress(i)));
+		}
+	}
+	
+	/**
+	 * Records the ppm of every zone in the buffer.
+	 * @param buffer
+	 */
+	public void record(ZoneStatusBuffer buffer) {
+		for (int i = 0; i < zones.length; i++) {
+			zones[i].record(buffer.getPolledAtMillis(), buffer.getPPM(i));
+		}
+	}
+	
+}
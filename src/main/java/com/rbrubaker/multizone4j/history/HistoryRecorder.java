@@ -0,0 +1,58 @@
+package com.rbrubaker.multizone4j.history;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.rbrubaker.multizone4j.DevicePoller;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.SnapshotListener;
+
+/**
+ * Keeps a {@link DeviceHistory} for every device it receives snapshots for. Add it to one or more {@link DevicePoller}s.
+ * 
+ * With the default capacities each zone keeps 512 raw samples, 12 hours of 1 minute buckets and 30 days of 1 hour buckets.
+ * That is about 40 KB per zone.
+ * @author Justin Brubaker
+ *
+ */
+public class HistoryRecorder implements SnapshotListener {
+
+	public static final int DEFAULT_RAW_CAPACITY = 512;
+	public static final int DEFAULT_MINUTE_CAPACITY = 12 * 60;
+	public static final int DEFAULT_HOUR_CAPACITY = 30 * 24;
+	
+	private final ConcurrentHashMap<MultiZoneDevice, DeviceHistory> histories = new ConcurrentHashMap<MultiZoneDevice, DeviceHistory>();
+	private final int rawCapacity;
+	private final int minuteCapacity;
+	private final int hourCapacity;
+	
+	public HistoryRecorder() {
+		this(DEFAULT_RAW_CAPACITY, DEFAULT_MINUTE_CAPACITY, DEFAULT_HOUR_CAPACITY);
+	}
+	
+	/**
+	 * @param _rawCapacity The number of raw samples kept per zone.
+	 * @param _minuteCapacity The number of 1 minute buckets kept per zone.
+	 * @param _hourCapacity The number of 1 hour buckets kept per zone.
+	 */
+	public HistoryRecorder(int _rawCapacity, int _minuteCapacity, int _hourCapacity) {
+		super();
+		rawCapacity = _rawCapacity;
+		minuteCapacity = _minuteCapacity;
+		hourCapacity = _hourCapacity;
+	}
+	
+	/**
+	 * @param device
+	 * @return The history of the device. It is created empty if nothing has been recorded for the device yet.
+	 */
+	public DeviceHistory getHistory(MultiZoneDevice device) {
+		return histories.computeIfAbsent(device, d -> new DeviceHistory(rawCapacity, minuteCapacity, hourCapacity));
+	}
+	
+	@Override
+	public void onSnapshot(MultiZoneDevice device, DeviceSnapshot snapshot) {
+		getHistory(device).record(snapshot);
+	}
+	
+}
@@ -0,0 +1,104 @@
+package com.rbrubaker.multizone4j.history;
+
+/**
+ * A fixed size ring of min/max/average buckets at one resolution, such as one bucket per minute.
+ * Everything is stored in primitive arrays, so recording and querying never box or allocate.
+ * Sums are kept as longs, so an hour bucket filled by polling as fast as the bus allows can not overflow.
+ * @author Justin Brubaker
+ *
+ */
+public class Rollup {
+
+	private final long resolutionMillis;
+	private final long[] bucketStart;
+	private final int[] min;
+	private final int[] max;
+	private final long[] sum;
+	private final int[] count;
+	private int head = -1;
+	private int size = 0;
+	
+	/**
+	 * @param _resolutionMillis The length of each bucket.
+	 * @param capacity The number of buckets kept. The oldest bucket is dropped when a new one is needed.
+	 */
+	public Rollup(long _resolutionMillis, int capacity) {
+		super();
+		resolutionMillis = _resolutionMillis;
+		bucketStart = new long[capacity];
+		min = new int[capacity];
+		max = new int[capacity];
+		sum = new long[capacity];
+		count = new int[capacity];
+	}
+	
+	public long getResolutionMillis() {
+		return resolutionMillis;
+	}
+	
+	public synchronized int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds a sample to the bucket it falls in.
+	 * Samples older than the newest bucket are ignored.
+	 * @param timeMillis
+	 * @param value
+	 */
+	public synchronized void record(long timeMillis, int value) {
+		long start = timeMillis - Math.floorMod(timeMillis, resolutionMillis);
+		
+		if (size > 0 && start == bucketStart[head]) {
+			min[head] = Math.min(min[head], value);
+			max[head] = Math.max(max[head], value);
+			sum[head] += value;
+			count[head]++;
+			return;
+		}
+		
+		if (size > 0 && start < bucketStart[head]) {
+			return;
+		}
+		
+		head = (head + 1) % bucketStart.length;
+		if (size < bucketStart.length) {
+			size++;
+		}
+		bucketStart[head] = start;
+		min[head] = value;
+		max[head] = value;
+		sum[head] = value;
+		count[head] = 1;
+	}
+	
+	/**
+	 * Copies the buckets that start between fromMillis and toMillis, oldest first.
+	 * Copying stops when the output arrays are full.
+	 * @param fromMillis Inclusive.
+	 * @param toMillis Exclusive.
+	 * @param startOut Receives the start time of each bucket.
+	 * @param minOut Receives the lowest value of each bucket.
+	 * @param maxOut Receives the highest value of each bucket.
+	 * @param avgOut Receives the average value of each bucket, rounded down.
+	 * @return The number of buckets copied.
+	 */
+	public synchronized int query(long fromMillis, long toMillis, long[] startOut, int[] minOut, int[] maxOut, int[] avgOut) {
+		int copied = 0;
+		int limit = Math.min(Math.min(startOut.length, minOut.length), Math.min(maxOut.length, avgOut.length));
+		
+		for (int i = 0; i < size && copied < limit; i++) {
+			int index = (head - size + 1 + i + bucketStart.length) % bucketStart.length;
+			if (bucketStart[index] >= fromMillis && bucketStart[index] < toMillis) {
+				startOut[copied] = bucketStart[index];
+				minOut[copied] = min[index];
+				maxOut[copied] = max[index];
+				avgOut[copied] = (int) (sum[index] / count[index]);
+				copied++;
+			}
+		}
+		
+		return copied;
+	}
+	
+}
@@ -0,0 +1,113 @@
+package com.rbrubaker.multizone4j.history;
+
+/**
+ * The recent ppm history of a single zone.
+ * Raw samples are kept in a fixed size ring, and every sample is also added to a 1 minute and a 1 hour {@link Rollup}.
+ * Times are stored as milliseconds since the epoch in primitive arrays, so recording and querying never box or allocate.
+ * @author Justin Brubaker
+ *
+ */
+public class ZoneHistory {
+
+	public static final long MINUTE_MILLIS = 60_000L;
+	public static final long HOUR_MILLIS = 3_600_000L;
+	
+	private final long[] times;
+	private final int[] ppm;
+	private int head = -1;
+	private int size = 0;
+	private final Rollup minutes;
+	private final Rollup hours;
+	
+	/**
+	 * @param rawCapacity The number of raw samples kept.
+	 * @param minuteCapacity The number of 1 minute buckets kept.
+	 * @param hourCapacity The number of 1 hour buckets kept.
+	 */
+	public ZoneHistory(int rawCapacity, int minuteCapacity, int hourCapacity) {
+		super();
+		times = new long[rawCapacity];
+		ppm = new int[rawCapacity];
+		minutes = new Rollup(MINUTE_MILLIS, minuteCapacity);
+		hours = new Rollup(HOUR_MILLIS, hourCapacity);
+	}
+	
+	/**
+	 * Adds a sample. Samples should be recorded in time order.
+	 * @param timeMillis
+	 * @param _ppm
+	 */
+	public void record(long timeMillis, int _ppm) {
+		synchronized (this) {
+			head = (head + 1) % times.length;
+			if (size < times.length) {
+				size++;
+			}
+			times[head] = timeMillis;
+			ppm[head] = _ppm;
+		}
+		minutes.record(timeMillis, _ppm);
+		hours.record(timeMillis, _ppm);
+	}
+	
+	/**
+	 * @return The number of raw samples held.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The time of the newest raw sample, or 0 if there are none.
+	 */
+	public synchronized long getLatestTime() {
+		return size == 0 ? 0 : times[head];
+	}
+	
+	/**
+	 * @return The newest raw ppm, or -1 if there are none.
+	 */
+	public synchronized int getLatestPpm() {
+		return size == 0 ? -1 : ppm[head];
+	}
+	
+	/**
+	 * Copies the raw samples taken between fromMillis and toMillis, oldest first.
+	 * Copying stops when the output arrays are full.
+	 * @param fromMillis Inclusive.
+	 * @param toMillis Exclusive.
+	 * @param timesOut Receives the time of each sample.
+	 * @param ppmOut Receives the ppm of each sample.
+	 * @return The number of samples copied.
+	 */
+	public synchronized int query(long fromMillis, long toMillis, long[] timesOut, int[] ppmOut) {
+		int copied = 0;
+		int limit = Math.min(timesOut.length, ppmOut.length);
+		
+		for (int i = 0; i < size && copied < limit; i++) {
+			int index = (head - size + 1 + i + times.length) % times.length;
+			if (times[index] >= fromMillis && times[index] < toMillis) {
+				timesOut[copied] = times[index];
+				ppmOut[copied] = ppm[index];
+				copied++;
+			}
+		}
+		
+		return copied;
+	}
+	
+	/**
+	 * @return The 1 minute min/max/average buckets.
+	 */
+	public Rollup getMinuteRollup() {
+		return minutes;
+	}
+	
+	/**
+	 * @return The 1 hour min/max/average buckets.
+	 */
+	public Rollup getHourRollup() {
+		return hours;
+	}
+	
+}
@@ -0,0 +1,130 @@
+package com.rbrubaker.multizone4j.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+/**
+ * The on disk layout shared by {@link SnapshotJournal} and {@link JournalReader}.
+ * 
+ * A journal is a directory of segment files named by a sequence number. Every segment has the same size.
+ * The first 128 bytes of a segment are a header, followed by fixed size 128 byte records:
+ * 
+ * 0: type (byte), 1: bus id (byte), 2: modbus address (short), 4: time in milliseconds since the epoch (long),
+ * 12: up to 55 raw registers (unsigned shorts), 124: CRC32 of bytes 0-123 (int).
+ * 
+ * Every segment has its own bus table so it can be read on its own. Before the first record of a bus in a segment,
+ * a bus record (type 3) gives the bus an id from 1-255: 1: the id, 12: the length of the name (short), 14: the bus name in UTF-8.
+ * A bus id of 0 means the record was appended without a bus name.
+ * 
+ * A record with type 0 or a bad CRC marks the end of the data in a segment. This is how a record torn by a power loss is found.
+ * @author Justin Brubaker
+ *
+ */
+class JournalFormat {
+
+	static final int RECORD_SIZE = 128;
+	static final int FILE_MAGIC = 0x4D5A4A4C;
+	static final int VERSION = 1;
+	static final String SEGMENT_SUFFIX = ".mzj";
+	
+	static final byte TYPE_BUS = 3;
+	static final int MAX_BUS_ID = 255;
+	
+	static final int TYPE_OFFSET = 0;
+	static final int BUS_OFFSET = 1;
+	static final int ADDRESS_OFFSET = 2;
+	static final int TIME_OFFSET = 4;
+	static final int REGISTERS_OFFSET = 12;
+	static final int CRC_OFFSET = 124;
+	static final int MAX_REGISTERS = (CRC_OFFSET - REGISTERS_OFFSET) / 2;
+	static final int BUS_NAME_OFFSET = 14;
+	static final int MAX_BUS_NAME_BYTES = CRC_OFFSET - BUS_NAME_OFFSET;
+	
+	private JournalFormat() {
+		
+	}
+	
+	static Path getSegmentPath(Path directory, long segmentNumber) {
+		return directory.resolve(String.format("%016d%s", segmentNumber, SEGMENT_SUFFIX));
+	}
+	
+	static long getSegmentNumber(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+	}
+	
+	/**
+	 * @param directory
+	 * @return The segment files in the directory, oldest first.
+	 * @throws IOException
+	 */
+	static ArrayList<Path> listSegments(Path directory) throws IOException {
+		ArrayList<Path> segments = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+			for (Path path : stream) {
+				segments.add(path);
+			}
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+	
+	static void writeHeader(ByteBuffer segment, int recordsPerSegment) {
+		segment.putInt(0, FILE_MAGIC);
+		segment.putInt(4, VERSION);
+		segment.putInt(8, RECORD_SIZE);
+		segment.putInt(12, recordsPerSegment);
+	}
+	
+	/**
+	 * @param segment
+	 * @return true if the segment starts with a version 1 journal header.
+	 * A segment whose header never reached the disk before a power loss has a zeroed header and returns false.
+	 */
+	static boolean hasHeader(ByteBuffer segment) {
+		return segment.capacity() >= RECORD_SIZE && segment.getInt(0) == FILE_MAGIC && segment.getInt(4) == VERSION && segment.getInt(8) == RECORD_SIZE;
+	}
+	
+	/**
+	 * @param segment
+	 * @return The number of records the segment was created with.
+	 * @throws IOException If the header is not a version 1 journal header.
+	 */
+	static int readHeader(ByteBuffer segment) throws IOException {
+		if (!hasHeader(segment)) {
+			throw new IOException("Not a multizone4j journal segment.");
+		}
+		return segment.getInt(12);
+	}
+	
+	/**
+	 * @param record A bus record of {@link #RECORD_SIZE} bytes.
+	 * @return The bus name held by the record.
+	 */
+	static String readBusName(byte[] record) {
+		int length = ByteBuffer.wrap(record).getShort(REGISTERS_OFFSET) & 0xFFFF;
+		return new String(record, BUS_NAME_OFFSET, Math.min(length, MAX_BUS_NAME_BYTES), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * @param record A record of {@link #RECORD_SIZE} bytes.
+	 * @param crc A CRC32 to reuse.
+	 * @return true if the record has a type and its CRC matches.
+	 */
+	static boolean isValid(byte[] record, CRC32 crc) {
+		if (record[TYPE_OFFSET] == 0) {
+			return false;
+		}
+		crc.reset();
+		crc.update(record, 0, CRC_OFFSET);
+		return (int) crc.getValue() == ByteBuffer.wrap(record).getInt(CRC_OFFSET);
+	}
+	
+}
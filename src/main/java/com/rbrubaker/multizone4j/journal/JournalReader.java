@@ -0,0 +1,221 @@
+package com.rbrubaker.multizone4j.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+
+/**
+ * Reads the records of a {@link SnapshotJournal} in the order they were written.
+ * Each segment is memory mapped and the reader reuses one record buffer, so scanning a journal runs at memory speed and does not allocate per record.
+ * 
+ * Call {@link #next()} to move to each record, then use the getters to read it.
+ * <pre>
+ * try (JournalReader reader = new JournalReader(directory)) {
+ *     reader.skipTo(startOfDay);
+ *     while (reader.next() &amp;&amp; reader.getTimeMillis() &lt; endOfDay) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * @author Justin Brubaker
+ *
+ */
+public class JournalReader implements Closeable {
+
+	private final ArrayList<Path> segments;
+	private final byte[] record = new byte[JournalFormat.RECORD_SIZE];
+	private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+	private final CRC32 crc = new CRC32();
+	private final String[] busNames = new String[JournalFormat.MAX_BUS_ID + 1];
+	private int segmentIndex = -1;
+	private MappedByteBuffer segment;
+	private int nextRecord;
+	private boolean hasRecord = false;
+	
+	/**
+	 * @param directory The directory of the journal.
+	 * @throws IOException
+	 */
+	public JournalReader(Path directory) throws IOException {
+		super();
+		segments = JournalFormat.listSegments(directory);
+	}
+	
+	/**
+	 * Moves to the next record.
+	 * @return false if there are no more records.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			if (segment != null && nextRecord * JournalFormat.RECORD_SIZE < segment.capacity()) {
+				segment.position(nextRecord * JournalFormat.RECORD_SIZE);
+				segment.get(record);
+				nextRecord++;
+				if (JournalFormat.isValid(record, crc)) {
+					if (record[JournalFormat.TYPE_OFFSET] == JournalFormat.TYPE_BUS) {
+						busNames[record[JournalFormat.BUS_OFFSET] & 0xFF] = JournalFormat.readBusName(record);
+						continue;
+					}
+					hasRecord = true;
+					return true;
+				}
+			}
+			
+			// The end of this segment's data. Move on to the next segment.
+			if (!openSegment(segmentIndex + 1)) {
+				hasRecord = false;
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Skips forward to the first record written at or after the given time.
+	 * Whole segments that end before the time are skipped without reading their records.
+	 * @param timeMillis
+	 * @return false if there is no such record.
+	 * @throws IOException
+	 */
+	public boolean skipTo(long timeMillis) throws IOException {
+		while (segmentIndex + 2 < segments.size() && getFirstTimeOf(segmentIndex + 2) < timeMillis) {
+			segmentIndex++;
+			segment = null;
+		}
+		
+		while (next()) {
+			if (getTimeMillis() >= timeMillis) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return {@link SnapshotJournal#TYPE_ZONE_STATUS} or {@link SnapshotJournal#TYPE_DEVICE_SNAPSHOT}.
+	 */
+	public byte getType() {
+		checkRecord();
+		return record[JournalFormat.TYPE_OFFSET];
+	}
+	
+	/**
+	 * @return The name of the bus the record's device is on, or null if the record was appended without a bus name.
+	 */
+	public String getBusName() {
+		checkRecord();
+		return busNames[record[JournalFormat.BUS_OFFSET] & 0xFF];
+	}
+	
+	public int getModbusAddress() {
+		checkRecord();
+		return recordBuffer.getShort(JournalFormat.ADDRESS_OFFSET) & 0xFFFF;
+	}
+	
+	/**
+	 * @return The time of the record in milliseconds since the epoch.
+	 */
+	public long getTimeMillis() {
+		checkRecord();
+		return recordBuffer.getLong(JournalFormat.TIME_OFFSET);
+	}
+	
+	/**
+	 * @param index The index of the register in the record. For snapshots index 0 is register 2000. For zone statuses index 0 is register 2001.
+	 * @return The raw register value.
+	 */
+	public int getRegister(int index) {
+		checkRecord();
+		if (index < 0 || index >= JournalFormat.MAX_REGISTERS) {
+			throw new IllegalArgumentException("The register index must be between 0-" + (JournalFormat.MAX_REGISTERS - 1) + ".");
+		}
+		return recordBuffer.getShort(JournalFormat.REGISTERS_OFFSET + index * 2) & 0xFFFF;
+	}
+	
+	/**
+	 * @return The current record as a {@link DeviceSnapshot}.
+	 * @throws IllegalStateException If the current record is not a snapshot.
+	 */
+	public DeviceSnapshot toSnapshot() throws IllegalStateException {
+		if (getType() != SnapshotJournal.TYPE_DEVICE_SNAPSHOT) {
+			throw new IllegalStateException("The current record is not a device snapshot.");
+		}
+		int[] registers = new int[DeviceSnapshot.REGISTER_COUNT];
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = getRegister(i);
+		}
+		return new DeviceSnapshot(registers, Instant.ofEpochMilli(getTimeMillis()));
+	}
+	
+	/**
+	 * Copies the zone statuses of the current record into the buffer. This works for both record types.
+	 * @param buffer
+	 * @return The same buffer.
+	 */
+	public ZoneStatusBuffer copyInto(ZoneStatusBuffer buffer) {
+		int first = getType() == SnapshotJournal.TYPE_DEVICE_SNAPSHOT ? 1 : 0;
+		for (int i = 0; i < ZoneStatusBuffer.ZONE_COUNT; i++) {
+			buffer.setZone(i, getRegister(first + i), getRegister(first + ZoneStatusBuffer.ZONE_COUNT + i));
+		}
+		buffer.setPolledAtMillis(getTimeMillis());
+		return buffer;
+	}
+	
+	@Override
+	public void close() {
+		segment = null;
+		hasRecord = false;
+		segmentIndex = segments.size();
+	}
+	
+	private void checkRecord() {
+		if (!hasRecord) {
+			throw new IllegalStateException("There is no current record. Call next() first.");
+		}
+	}
+	
+	private boolean openSegment(int index) throws IOException {
+		segment = null;
+		segmentIndex = index;
+		Arrays.fill(busNames, null);
+		if (index >= segments.size()) {
+			return false;
+		}
+		
+		try (FileChannel channel = FileChannel.open(segments.get(index), StandardOpenOption.READ)) {
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (index == segments.size() - 1 && !JournalFormat.hasHeader(segment)) {
+			// The newest segment lost its header to a power loss. The journal treats it as empty.
+			segment = null;
+			segmentIndex = segments.size();
+			return false;
+		}
+		JournalFormat.readHeader(segment);
+		nextRecord = 1;
+		return true;
+	}
+	
+	private long getFirstTimeOf(int index) throws IOException {
+		try (FileChannel channel = FileChannel.open(segments.get(index), StandardOpenOption.READ)) {
+			ByteBuffer first = ByteBuffer.allocate(JournalFormat.RECORD_SIZE);
+			channel.read(first, JournalFormat.RECORD_SIZE);
+			if (!JournalFormat.isValid(first.array(), crc)) {
+				return Long.MAX_VALUE;
+			}
+			return first.getLong(JournalFormat.TIME_OFFSET);
+		}
+	}
+	
+}
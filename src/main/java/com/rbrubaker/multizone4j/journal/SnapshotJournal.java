@@ -0,0 +1,292 @@
+package com.rbrubaker.multizone4j.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+import com.rbrubaker.multizone4j.DevicePoller;
+import com.rbrubaker.multizone4j.DeviceSnapshot;
+import com.rbrubaker.multizone4j.ModbusBus;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.MultiZoneFleet;
+import com.rbrubaker.multizone4j.SnapshotListener;
+import com.rbrubaker.multizone4j.ZoneStatusBuffer;
+
+/**
+ * An append only journal of zone statuses and device snapshots, for keeping every reading for audits.
+ * Records are written into a memory mapped segment file. When a segment is full a new one is started.
+ * 
+ * Appending does not wait for the disk. The segment is forced to disk at most once per force interval and when a segment is finished,
+ * so a power loss can lose at most the records written during the last interval.
+ * Every record has a CRC, so a record torn by a power loss is found and written over when the journal is opened again.
+ * The header of a new segment is forced as soon as the segment is created. If the newest segment still has no valid header it is treated as empty and started again.
+ * 
+ * Records are tagged with the name of the bus as well as the modbus address, so devices with the same address on different buses of a {@link MultiZoneFleet} can be told apart.
+ * 
+ * Add the journal to a {@link DevicePoller} or a {@link MultiZoneFleet} to record every snapshot. Use {@link JournalReader} to read it back.
+ * @author Justin Brubaker
+ *
+ */
+public class SnapshotJournal implements SnapshotListener, Closeable {
+
+	/**
+	 * A record holding the ppm and alarm status of all 16 zones (registers 2001-2032).
+	 */
+	public static final byte TYPE_ZONE_STATUS = 1;
+	/**
+	 * A record holding a full {@link DeviceSnapshot} (registers 2000-2054).
+	 */
+	public static final byte TYPE_DEVICE_SNAPSHOT = 2;
+	/**
+	 * The default number of records per segment. At 128 bytes per record this is a 1 MB segment.
+	 */
+	public static final int DEFAULT_RECORDS_PER_SEGMENT = 8191;
+	public static final Duration DEFAULT_FORCE_INTERVAL = Duration.ofSeconds(10);
+	
+	private final Path directory;
+	private final int recordsPerSegment;
+	private final byte[] record = new byte[JournalFormat.RECORD_SIZE];
+	private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+	private final CRC32 crc = new CRC32();
+	private final HashMap<String, Integer> segmentBusIds = new HashMap<String, Integer>();
+	private long forceIntervalNanos = DEFAULT_FORCE_INTERVAL.toNanos();
+	private long lastForceNanos = System.nanoTime();
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private long segmentNumber;
+	private int nextRecord;
+	
+	public SnapshotJournal(Path _directory) throws IOException {
+		this(_directory, DEFAULT_RECORDS_PER_SEGMENT);
+	}
+	
+	/**
+	 * Opens the journal in the directory, creating the directory if needed.
+	 * Appending continues after the last valid record of the newest segment.
+	 * @param _directory
+	 * @param _recordsPerSegment The number of records in each new segment.
+	 * @throws IOException
+	 */
+	public SnapshotJournal(Path _directory, int _recordsPerSegment) throws IOException {
+		super();
+		directory = _directory;
+		recordsPerSegment = _recordsPerSegment;
+		Files.createDirectories(directory);
+		
+		ArrayList<Path> segments = JournalFormat.listSegments(directory);
+		if (segments.isEmpty()) {
+			openSegment(0, true);
+		} else {
+			openSegment(JournalFormat.getSegmentNumber(segments.get(segments.size() - 1)), false);
+		}
+	}
+	
+	/**
+	 * Sets the longest time appended records may wait before they are forced to disk.
+	 * @param interval {@link Duration#ZERO} forces after every record.
+	 */
+	public synchronized void setForceInterval(Duration interval) {
+		forceIntervalNanos = interval.toNanos();
+	}
+	
+	/**
+	 * Appends every register of a snapshot without a bus name.
+	 * @param modbusAddress The modbus address of the device the snapshot came from.
+	 * @param snapshot
+	 * @throws IOException
+	 */
+	public void append(int modbusAddress, DeviceSnapshot snapshot) throws IOException {
+		append(null, modbusAddress, snapshot);
+	}
+	
+	/**
+	 * Appends every register of a snapshot.
+	 * @param busName The name of the bus the device is on. See {@link ModbusBus#getName()}. null if there is only one bus.
+	 * @param modbusAddress The modbus address of the device the snapshot came from.
+	 * @param snapshot
+	 * @throws IOException
+	 */
+	public synchronized void append(String busName, int modbusAddress, DeviceSnapshot snapshot) throws IOException {
+		long timeMillis = snapshot.getTakenAt().toEpochMilli();
+		startRecord(TYPE_DEVICE_SNAPSHOT, getBusId(busName, timeMillis), modbusAddress, timeMillis);
+		for (int i = 0; i < DeviceSnapshot.REGISTER_COUNT; i++) {
+			recordBuffer.putShort((short) snapshot.getRegister(DeviceSnapshot.FIRST_REGISTER + i));
+		}
+		finishRecord();
+	}
+	
+	/**
+	 * Appends the ppm and alarm status of every zone in the buffer without a bus name.
+	 * @param modbusAddress The modbus address of the device the buffer was filled from.
+	 * @param buffer
+	 * @throws IOException
+	 */
+	public void append(int modbusAddress, ZoneStatusBuffer buffer) throws IOException {
+		append(null, modbusAddress, buffer);
+	}
+	
+	/**
+	 * Appends the ppm and alarm status of every zone in the buffer.
+	 * @param busName The name of the bus the device is on. See {@link ModbusBus#getName()}. null if there is only one bus.
+	 * @param modbusAddress The modbus address of the device the buffer was filled from.
+	 * @param buffer
+	 * @throws IOException
+	 */
+	public synchronized void append(String busName, int modbusAddress, ZoneStatusBuffer buffer) throws IOException {
+		startRecord(TYPE_ZONE_STATUS, getBusId(busName, buffer.getPolledAtMillis()), modbusAddress, buffer.getPolledAtMillis());
+		for (int i = 0; i < ZoneStatusBuffer.ZONE_COUNT; i++) {
+			recordBuffer.putShort((short) buffer.getPPM(i));
+		}
+		for (int i = 0; i < ZoneStatusBuffer.ZONE_COUNT; i++) {
+			recordBuffer.putShort((short) buffer.getAlarmStatus(i));
+		}
+		finishRecord();
+	}
+	
+	@Override
+	public void onSnapshot(MultiZoneDevice device, DeviceSnapshot snapshot) {
+		try {
+			append(device.getBus().getName(), device.getModbusAddress(), snapshot);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to append to the journal in " + directory, e);
+		}
+	}
+	
+	/**
+	 * Forces every appended record to disk.
+	 */
+	public synchronized void force() {
+		segment.force();
+		lastForceNanos = System.nanoTime();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			force();
+			channel.close();
+			channel = null;
+			segment = null;
+		}
+	}
+	
+	/**
+	 * Gets the id of the bus in the current segment, writing a bus record first if the bus has not been used in this segment yet.
+	 */
+	private int getBusId(String busName, long timeMillis) throws IOException {
+		if (busName == null) {
+			return 0;
+		}
+		Integer id = segmentBusIds.get(busName);
+		while (id == null) {
+			byte[] name = busName.getBytes(StandardCharsets.UTF_8);
+			if (name.length > JournalFormat.MAX_BUS_NAME_BYTES) {
+				throw new IOException("The bus name " + busName + " is longer than " + JournalFormat.MAX_BUS_NAME_BYTES + " bytes.");
+			}
+			if (segmentBusIds.size() >= JournalFormat.MAX_BUS_ID) {
+				throw new IOException("A journal segment can only hold " + JournalFormat.MAX_BUS_ID + " buses.");
+			}
+			int newId = segmentBusIds.size() + 1;
+			startRecord(JournalFormat.TYPE_BUS, newId, 0, timeMillis);
+			recordBuffer.putShort((short) name.length);
+			recordBuffer.put(name);
+			segmentBusIds.put(busName, newId);
+			// If the bus record filled the segment the new segment has an empty bus table, so the bus record is written again.
+			finishRecord();
+			id = segmentBusIds.get(busName);
+		}
+		return id;
+	}
+	
+	private void startRecord(byte type, int busId, int modbusAddress, long timeMillis) throws IOException {
+		if (channel == null) {
+			throw new IOException("The journal has been closed.");
+		}
+		for (int i = 0; i < record.length; i++) {
+			record[i] = 0;
+		}
+		recordBuffer.clear();
+		recordBuffer.put(type);
+		recordBuffer.put((byte) busId);
+		recordBuffer.putShort((short) modbusAddress);
+		recordBuffer.putLong(timeMillis);
+	}
+	
+	private void finishRecord() throws IOException {
+		crc.reset();
+		crc.update(record, 0, JournalFormat.CRC_OFFSET);
+		recordBuffer.putInt(JournalFormat.CRC_OFFSET, (int) crc.getValue());
+		
+		segment.position(nextRecord * JournalFormat.RECORD_SIZE);
+		segment.put(record);
+		nextRecord++;
+		
+		if (nextRecord > recordsInSegment()) {
+			force();
+			channel.close();
+			openSegment(segmentNumber + 1, true);
+		} else if (System.nanoTime() - lastForceNanos >= forceIntervalNanos) {
+			force();
+		}
+	}
+	
+	private int recordsInSegment() {
+		return segment.capacity() / JournalFormat.RECORD_SIZE - 1;
+	}
+	
+	private void openSegment(long _segmentNumber, boolean create) throws IOException {
+		Path path = JournalFormat.getSegmentPath(directory, _segmentNumber);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segmentNumber = _segmentNumber;
+		segmentBusIds.clear();
+		
+		if (create) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) (recordsPerSegment + 1) * JournalFormat.RECORD_SIZE);
+			JournalFormat.writeHeader(segment, recordsPerSegment);
+			// Force the header now. Otherwise a power loss before the next force leaves a segment that cannot be opened.
+			force();
+			nextRecord = 1;
+			return;
+		}
+		
+		segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		if (!JournalFormat.hasHeader(segment)) {
+			// The header of the newest segment was lost to a power loss, so none of its records were forced either. Start it again.
+			segment = null;
+			channel.close();
+			openSegment(_segmentNumber, true);
+			return;
+		}
+		
+		// Find the end of the valid records. A torn record from a power loss is written over.
+		byte[] existing = new byte[JournalFormat.RECORD_SIZE];
+		nextRecord = 1;
+		while (nextRecord <= recordsInSegment()) {
+			segment.position(nextRecord * JournalFormat.RECORD_SIZE);
+			segment.get(existing);
+			if (!JournalFormat.isValid(existing, crc)) {
+				break;
+			}
+			if (existing[JournalFormat.TYPE_OFFSET] == JournalFormat.TYPE_BUS) {
+				segmentBusIds.put(JournalFormat.readBusName(existing), existing[JournalFormat.BUS_OFFSET] & 0xFF);
+			}
+			nextRecord++;
+		}
+		
+		if (nextRecord > recordsInSegment()) {
+			channel.close();
+			openSegment(segmentNumber + 1, true);
+		}
+	}
+	
+}
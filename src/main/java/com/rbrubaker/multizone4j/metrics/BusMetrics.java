@@ -0,0 +1,132 @@
+package com.rbrubaker.multizone4j.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+import com.rbrubaker.multizone4j.ModbusBus;
+import com.rbrubaker.multizone4j.registers.RegisterBlock;
+
+/**
+ * The request metrics of one {@link ModbusBus}. Use {@link ModbusBus#getMetrics()} to get them.
+ * Every request is counted in the bus total, and again by function code, by device and by register range.
+ * 
+ * Recording is lock free, so the metrics can be read from any thread while the bus is running.
+ * @author Justin Brubaker
+ *
+ */
+public class BusMetrics {
+
+	private final RequestMetrics total = new RequestMetrics();
+	private final ConcurrentHashMap<Integer, RequestMetrics> byFunctionCode = new ConcurrentHashMap<Integer, RequestMetrics>();
+	private final ConcurrentHashMap<Integer, RequestMetrics> byDevice = new ConcurrentHashMap<Integer, RequestMetrics>();
+	private final ConcurrentHashMap<RegisterBlock, RequestMetrics> byRegisterRange = new ConcurrentHashMap<RegisterBlock, RequestMetrics>();
+	private final AtomicLong busyNanos = new AtomicLong();
+	private volatile long sinceNanos = System.nanoTime();
+	private volatile Instant since = Instant.now();
+	
+	/**
+	 * Records one finished request.
+	 * @param functionCode
+	 * @param unitId The modbus address of the device.
+	 * @param startAddress
+	 * @param count The number of registers.
+	 * @param nanos How long the request took.
+	 * @param sent The size of the request frame in bytes.
+	 * @param received The size of the response frame in bytes, or 0 if there was no valid response.
+	 * @param failure The exception the request failed with, or null.
+	 */
+	public void record(int functionCode, int unitId, int startAddress, int count, long nanos, int sent, int received, ModbusException failure) {
+		RequestMetrics.Outcome outcome;
+		if (failure == null) {
+			outcome = RequestMetrics.Outcome.OK;
+		} else if (failure instanceof ModbusSlaveException) {
+			outcome = RequestMetrics.Outcome.EXCEPTION_RESPONSE;
+		} else {
+			outcome = RequestMetrics.Outcome.TIMEOUT;
+		}
+		
+		busyNanos.addAndGet(nanos);
+		total.record(nanos, sent, received, outcome);
+		byFunctionCode.computeIfAbsent(functionCode, k -> new RequestMetrics()).record(nanos, sent, received, outcome);
+		byDevice.computeIfAbsent(unitId, k -> new RequestMetrics()).record(nanos, sent, received, outcome);
+		byRegisterRange.computeIfAbsent(new RegisterBlock(functionCode, startAddress, count), k -> new RequestMetrics()).record(nanos, sent, received, outcome);
+	}
+	
+	/**
+	 * @return Every request on the bus.
+	 */
+	public RequestMetrics getTotal() {
+		return total;
+	}
+	
+	/**
+	 * @return The requests grouped by modbus function code.
+	 */
+	public Map<Integer, RequestMetrics> getByFunctionCode() {
+		return Collections.unmodifiableMap(byFunctionCode);
+	}
+	
+	/**
+	 * @return The requests grouped by the modbus address of the device.
+	 */
+	public Map<Integer, RequestMetrics> getByDevice() {
+		return Collections.unmodifiableMap(byDevice);
+	}
+	
+	/**
+	 * @return The requests grouped by function code, start address and register count.
+	 */
+	public Map<RegisterBlock, RequestMetrics> getByRegisterRange() {
+		return Collections.unmodifiableMap(byRegisterRange);
+	}
+	
+	/**
+	 * @return When the metrics were created or last reset.
+	 */
+	public Instant getSince() {
+		return since;
+	}
+	
+	/**
+	 * @return The total time the bus spent waiting on requests since {@link #getSince()}.
+	 */
+	public long getBusyNanos() {
+		return busyNanos.get();
+	}
+	
+	/**
+	 * A bus near 100% has no room for more requests, and adding devices or polling faster will only make the queue longer.
+	 * @return The percentage of time since {@link #getSince()} that the bus was busy with a request, between 0 and 100.
+	 */
+	public double getUtilisation() {
+		long elapsed = System.nanoTime() - sinceNanos;
+		if (elapsed <= 0) {
+			return 0;
+		}
+		return Math.min(100.0, busyNanos.get() * 100.0 / elapsed);
+	}
+	
+	/**
+	 * Clears every counter and starts a new utilisation window.
+	 */
+	public void reset() {
+		total.reset();
+		byFunctionCode.clear();
+		byDevice.clear();
+		byRegisterRange.clear();
+		busyNanos.set(0);
+		sinceNanos = System.nanoTime();
+		since = Instant.now();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("utilisation=%.1f%% %s", getUtilisation(), total);
+	}
+	
+}
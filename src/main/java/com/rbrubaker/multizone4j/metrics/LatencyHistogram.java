@@ -0,0 +1,107 @@
+package com.rbrubaker.multizone4j.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of request latencies with power of two microsecond buckets.
+ * Bucket 0 holds latencies under 1 microsecond, and bucket n holds latencies from 2^(n-1) up to 2^n microseconds.
+ * The last bucket also holds everything slower, so recording never allocates.
+ * @author Justin Brubaker
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of buckets. The last bucket starts at about 67 seconds.
+	 */
+	public static final int BUCKET_COUNT = 28;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	
+	public void record(long nanos) {
+		long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+		int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+	
+	public long getCount() {
+		return count.get();
+	}
+	
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+	
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+	
+	/**
+	 * @return The average latency in nanoseconds, or 0 if nothing has been recorded.
+	 */
+	public long getMeanNanos() {
+		long n = count.get();
+		return n == 0 ? 0 : totalNanos.get() / n;
+	}
+	
+	/**
+	 * @param bucket
+	 * @return The number of latencies recorded in the bucket.
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+	
+	/**
+	 * @param bucket
+	 * @return The exclusive upper bound of the bucket in microseconds.
+	 */
+	public static long getBucketUpperBoundMicros(int bucket) {
+		return 1L << bucket;
+	}
+	
+	/**
+	 * The result is the upper bound of the bucket the percentile falls in, so it is at most twice the true value.
+	 * @param percentile Between 0 and 100.
+	 * @return The latency in microseconds that the given percentage of requests were faster than, or 0 if nothing has been recorded.
+	 */
+	public long getPercentileMicros(double percentile) {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(n * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return getBucketUpperBoundMicros(i);
+			}
+		}
+		return getBucketUpperBoundMicros(BUCKET_COUNT - 1);
+	}
+	
+	void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%dus p50<%dus p99<%dus max=%dus", getCount(), TimeUnit.NANOSECONDS.toMicros(getMeanNanos()),
+				getPercentileMicros(50), getPercentileMicros(99), TimeUnit.NANOSECONDS.toMicros(getMaxNanos()));
+	}
+	
+}
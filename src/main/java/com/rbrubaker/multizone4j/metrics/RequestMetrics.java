@@ -0,0 +1,88 @@
+package com.rbrubaker.multizone4j.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters for one group of modbus requests, such as every request to one device.
+ * @author Justin Brubaker
+ *
+ */
+public class RequestMetrics {
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder exceptionResponses = new LongAdder();
+	private final LongAdder bytesSent = new LongAdder();
+	private final LongAdder bytesReceived = new LongAdder();
+	
+	/**
+	 * @return The time from sending each request to receiving its response or giving up. Failed requests are included.
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+	
+	public long getRequests() {
+		return latency.getCount();
+	}
+	
+	/**
+	 * @return The number of requests that did not get a valid response. This includes corrupt responses, such as CRC errors.
+	 */
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+	
+	/**
+	 * @return The number of requests the device answered with a modbus exception.
+	 */
+	public long getExceptionResponses() {
+		return exceptionResponses.sum();
+	}
+	
+	/**
+	 * @return The size of every request frame sent, including the address and checksum or TCP header.
+	 */
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+	
+	/**
+	 * @return The size of every valid response frame received, including the address and checksum or TCP header.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+	
+	void record(long nanos, int sent, int received, Outcome outcome) {
+		latency.record(nanos);
+		bytesSent.add(sent);
+		bytesReceived.add(received);
+		if (outcome == Outcome.TIMEOUT) {
+			timeouts.increment();
+		} else if (outcome == Outcome.EXCEPTION_RESPONSE) {
+			exceptionResponses.increment();
+		}
+	}
+	
+	void reset() {
+		latency.reset();
+		timeouts.reset();
+		exceptionResponses.reset();
+		bytesSent.reset();
+		bytesReceived.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s timeouts=%d exceptions=%d sent=%dB received=%dB", latency, getTimeouts(), getExceptionResponses(), getBytesSent(), getBytesReceived());
+	}
+	
+	/**
+	 * How a request ended.
+	 */
+	enum Outcome {
+		OK, TIMEOUT, EXCEPTION_RESPONSE;
+	}
+	
+}
@@ -0,0 +1,74 @@
+package com.rbrubaker.multizone4j.profile;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.rbrubaker.multizone4j.DeviceConfiguration;
+
+/**
+ * The parts of a device that rarely change: the number of zones installed and the Manual Section B.4.2 setpoints.
+ * A profile is saved to disk by a {@link DeviceProfileStore} so that they do not have to be read from the device after a restart.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceProfile {
+
+	private final String busName;
+	private final int modbusAddress;
+	private final int zonesInstalled;
+	private final DeviceConfiguration configuration;
+	private final Instant savedAt;
+	
+	/**
+	 * @param _busName The name of the bus the device is on. See {@link com.rbrubaker.multizone4j.ModbusBus#getName()}.
+	 * @param _modbusAddress
+	 * @param _zonesInstalled
+	 * @param _configuration
+	 * @param _savedAt The time the values were read from the device.
+	 */
+	public DeviceProfile(String _busName, int _modbusAddress, int _zonesInstalled, DeviceConfiguration _configuration, Instant _savedAt) {
+		super();
+		busName = _busName;
+		modbusAddress = _modbusAddress;
+		zonesInstalled = _zonesInstalled;
+		configuration = _configuration;
+		savedAt = _savedAt;
+	}
+	
+	public String getBusName() {
+		return busName;
+	}
+	
+	public int getModbusAddress() {
+		return modbusAddress;
+	}
+	
+	public int getZonesInstalled() {
+		return zonesInstalled;
+	}
+	
+	public DeviceConfiguration getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * @return The time the values were read from the device.
+	 */
+	public Instant getSavedAt() {
+		return savedAt;
+	}
+	
+	/**
+	 * @param other
+	 * @return true if the other profile has the same number of zones installed and the same setpoints.
+	 */
+	public boolean hasSameValues(DeviceProfile other) {
+		return zonesInstalled == other.zonesInstalled && Arrays.equals(configuration.getRegisters(), other.configuration.getRegisters());
+	}
+	
+	@Override
+	public String toString() {
+		return "Profile of address " + modbusAddress + " on " + busName + " with " + zonesInstalled + " zones, saved at " + savedAt;
+	}
+	
+}
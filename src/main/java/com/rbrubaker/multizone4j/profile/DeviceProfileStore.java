@@ -0,0 +1,191 @@
+package com.rbrubaker.multizone4j.profile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+import com.rbrubaker.multizone4j.DeviceConfiguration;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+
+/**
+ * Saves a {@link DeviceProfile} for each device to a directory, so a restarted process can use the setpoints straight away.
+ * 
+ * {@link #warmStart(MultiZoneDevice)} loads the saved profile into the device's configuration cache and then checks it against the device in the background.
+ * The check is two modbus transactions, one for the zones installed and one for the setpoints. Neither is a zone status read, and the setpoints are read at background priority, so the check does not hold up the normal polling.
+ * The file is only rewritten when the device has changed.
+ * 
+ * Each device has its own small file, named after its bus and modbus address:
+ * 
+ * 0: magic (int), 4: version (int), 8: modbus address (short), 10: zones installed (short), 12: time the values were read in milliseconds since the epoch (long),
+ * 20: bus name length (short), 22: bus name (UTF-8), then registers 3000-3079 (unsigned shorts), then a CRC32 of everything before it (int).
+ * 
+ * A file with a bad CRC, or one that belongs to another bus or address, is treated as missing.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceProfileStore {
+
+	static final int FILE_MAGIC = 0x4D5A5046;
+	static final int VERSION = 1;
+	static final String FILE_SUFFIX = ".mzp";
+	
+	private final Path directory;
+	
+	/**
+	 * @param _directory The directory to keep the profiles in. It is created when the first profile is saved.
+	 */
+	public DeviceProfileStore(Path _directory) {
+		super();
+		directory = _directory;
+	}
+	
+	public Path getDirectory() {
+		return directory;
+	}
+	
+	/**
+	 * @param busName
+	 * @param modbusAddress
+	 * @return The file the profile of the given device is saved in.
+	 */
+	public Path getPath(String busName, int modbusAddress) {
+		return directory.resolve(busName.replaceAll("[^A-Za-z0-9.-]", "_") + "-" + modbusAddress + FILE_SUFFIX);
+	}
+	
+	/**
+	 * Loads the saved profile of a device and stores its setpoints in the device's configuration cache, then checks the profile against the device in the background.
+	 * The setpoints are deliberately stamped as read now, whatever the age of the profile, so the setpoint getters use them without contacting the device for a full {@link MultiZoneDevice#getConfigurationCacheTtl()}.
+	 * The check normally replaces them with values read from the device within seconds. The time the profile was saved is still available from {@link DeviceProfile#getSavedAt()}.
+	 * A check that fails, for example because the device is offline, is ignored, and the saved setpoints keep being used until the TTL passes. Use {@link #revalidateAsync(MultiZoneDevice)} to see the result.
+	 * The zones installed are not given to the device. {@link MultiZoneDevice#getZonesInstalled()} still reads the device, so use {@link DeviceProfile#getZonesInstalled()} instead.
+	 * @param device
+	 * @return The saved profile, or null if there is none. Without a profile the check reads the device and saves one.
+	 * @throws IOException If the profile can not be read.
+	 */
+	public DeviceProfile warmStart(MultiZoneDevice device) throws IOException {
+		DeviceProfile profile = load(device);
+		if (profile != null) {
+			device.putConfiguration(new DeviceConfiguration(profile.getConfiguration().getRegisters(), Instant.now()));
+		}
+		revalidateAsync(device);
+		return profile;
+	}
+	
+	/**
+	 * Reads the zones installed and the setpoints from the device at background priority, which also refreshes the device's configuration cache.
+	 * The profile is saved if it is missing or has changed. This method does not block.
+	 * @param device
+	 * @return The profile read from the device.
+	 */
+	public CompletableFuture<DeviceProfile> revalidateAsync(MultiZoneDevice device) {
+		return device.getZonesInstalledAsync().thenCombine(device.reloadConfigurationAsync(), (zonesInstalled, configuration) -> {
+			return new DeviceProfile(device.getBus().getName(), device.getModbusAddress(), zonesInstalled, configuration, configuration.getLoadedAt());
+		}).thenApplyAsync(current -> {
+			try {
+				DeviceProfile saved = load(device);
+				if (saved == null || !saved.hasSameValues(current)) {
+					save(current);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return current;
+		});
+	}
+	
+	/**
+	 * @param device
+	 * @return The saved profile of the device, or null if there is none or the file is damaged.
+	 * @throws IOException If the file exists but can not be read.
+	 */
+	public DeviceProfile load(MultiZoneDevice device) throws IOException {
+		String busName = device.getBus().getName();
+		byte[] file;
+		try {
+			file = Files.readAllBytes(getPath(busName, device.getModbusAddress()));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		
+		DeviceProfile profile = decode(file);
+		if (profile == null || !profile.getBusName().equals(busName) || profile.getModbusAddress() != device.getModbusAddress()) {
+			return null;
+		}
+		return profile;
+	}
+	
+	/**
+	 * Saves a profile. The file is replaced in one step, so a crash while saving leaves the old profile in place.
+	 * @param profile
+	 * @throws IOException
+	 */
+	public void save(DeviceProfile profile) throws IOException {
+		Files.createDirectories(directory);
+		Path path = getPath(profile.getBusName(), profile.getModbusAddress());
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temp, encode(profile));
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	static byte[] encode(DeviceProfile profile) {
+		byte[] name = profile.getBusName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocate(22 + name.length + DeviceConfiguration.REGISTER_COUNT * 2 + 4);
+		buffer.putInt(FILE_MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putShort((short) profile.getModbusAddress());
+		buffer.putShort((short) profile.getZonesInstalled());
+		buffer.putLong(profile.getSavedAt().toEpochMilli());
+		buffer.putShort((short) name.length);
+		buffer.put(name);
+		for (int value : profile.getConfiguration().getRegisters()) {
+			buffer.putShort((short) value);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+		return buffer.array();
+	}
+	
+	/**
+	 * @param file
+	 * @return The profile, or null if the file is not a valid version 1 profile.
+	 */
+	static DeviceProfile decode(byte[] file) {
+		if (file.length < 22) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(file);
+		int nameLength = buffer.getShort(20) & 0xFFFF;
+		int crcOffset = 22 + nameLength + DeviceConfiguration.REGISTER_COUNT * 2;
+		if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != VERSION || file.length != crcOffset + 4) {
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(file, 0, crcOffset);
+		if ((int) crc.getValue() != buffer.getInt(crcOffset)) {
+			return null;
+		}
+		
+		buffer.position(8);
+		int modbusAddress = buffer.getShort() & 0xFFFF;
+		int zonesInstalled = buffer.getShort() & 0xFFFF;
+		Instant savedAt = Instant.ofEpochMilli(buffer.getLong());
+		buffer.getShort();
+		String busName = new String(file, 22, nameLength, StandardCharsets.UTF_8);
+		buffer.position(22 + nameLength);
+		int[] registers = new int[DeviceConfiguration.REGISTER_COUNT];
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = buffer.getShort() & 0xFFFF;
+		}
+		return new DeviceProfile(busName, modbusAddress, zonesInstalled, new DeviceConfiguration(registers, savedAt), savedAt);
+	}
+	
+}
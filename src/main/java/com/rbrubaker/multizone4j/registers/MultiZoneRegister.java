@@ -0,0 +1,114 @@
+package com.rbrubaker.multizone4j.registers;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.rbrubaker.multizone4j.BusPriority;
+
+/**
+ * The catalogue of the Bacharach MultiZone modbus registers. (Manual Sections B.4.1 and B.4.2.)
+ * Each entry describes the function code used to read it, its first register address, how many consecutive registers it covers and the value that the raw register is divided by.
+ * Registers that cover more than one register hold one value per zone, starting at zone 1.
+ * @author Justin Brubaker
+ *
+ */
+public enum MultiZoneRegister {
+
+	FAULT_CODE(Modbus.READ_MULTIPLE_REGISTERS, 2000, 1, 1, BusPriority.STATUS),
+	ZONE_PPM(Modbus.READ_MULTIPLE_REGISTERS, 2001, 16, 1, BusPriority.ZONE_STATUS),
+	ZONE_ALARM_STATUS(Modbus.READ_MULTIPLE_REGISTERS, 2017, 16, 1, BusPriority.ZONE_STATUS),
+	OPERATING_MODE(Modbus.READ_MULTIPLE_REGISTERS, 2033, 1, 1, BusPriority.STATUS),
+	CURRENT_STATE(Modbus.READ_MULTIPLE_REGISTERS, 2034, 1, 1, BusPriority.STATUS),
+	ACTIVE_ZONE(Modbus.READ_MULTIPLE_REGISTERS, 2036, 1, 1, BusPriority.STATUS),
+	MAX_ALARM(Modbus.READ_MULTIPLE_REGISTERS, 2037, 1, 1, BusPriority.ALARM),
+	ACTIVE_ALARM_COUNT(Modbus.READ_MULTIPLE_REGISTERS, 2038, 1, 1, BusPriority.ALARM),
+	ACKNOWLEDGED_ALARM_COUNT(Modbus.READ_MULTIPLE_REGISTERS, 2039, 1, 1, BusPriority.ALARM),
+	FAULT_CODE_STATUS(Modbus.READ_MULTIPLE_REGISTERS, 2041, 1, 1, BusPriority.STATUS),
+	AUDIBLE_ALARM(Modbus.READ_MULTIPLE_REGISTERS, 2042, 1, 1, BusPriority.ALARM),
+	SILENCED(Modbus.READ_MULTIPLE_REGISTERS, 2043, 1, 1, BusPriority.ALARM),
+	HIGHEST_CONCENTRATION_ZONE(Modbus.READ_MULTIPLE_REGISTERS, 2044, 1, 1, BusPriority.STATUS),
+	HIGHEST_CONCENTRATION(Modbus.READ_MULTIPLE_REGISTERS, 2045, 1, 1, BusPriority.STATUS),
+	ZONES_INSTALLED(Modbus.READ_MULTIPLE_REGISTERS, 2046, 1, 1, BusPriority.STATUS),
+	MANIFOLD_PRESSURE(Modbus.READ_MULTIPLE_REGISTERS, 2047, 1, 100, BusPriority.BACKGROUND),
+	AMBIENT_PRESSURE(Modbus.READ_MULTIPLE_REGISTERS, 2048, 1, 100, BusPriority.BACKGROUND),
+	VACUUM_PRESSURE(Modbus.READ_MULTIPLE_REGISTERS, 2049, 1, 100, BusPriority.BACKGROUND),
+	BENCH_TEMP(Modbus.READ_MULTIPLE_REGISTERS, 2050, 1, 100, BusPriority.BACKGROUND),
+	AVE_VOLTAGE(Modbus.READ_MULTIPLE_REGISTERS, 2051, 1, 1000, BusPriority.BACKGROUND),
+	ZERO_VOLTS(Modbus.READ_MULTIPLE_REGISTERS, 2052, 1, 1000, BusPriority.BACKGROUND),
+	AVE_AU(Modbus.READ_MULTIPLE_REGISTERS, 2053, 1, 10000, BusPriority.BACKGROUND),
+	BENCH_PPM(Modbus.READ_MULTIPLE_REGISTERS, 2054, 1, 1, BusPriority.STATUS),
+	REFRIGERANT_TYPE(Modbus.READ_INPUT_REGISTERS, 3000, 16, 1, BusPriority.BACKGROUND),
+	LEAK_LEVEL_SETPOINT(Modbus.READ_INPUT_REGISTERS, 3016, 16, 1, BusPriority.BACKGROUND),
+	SPILL_LEVEL_SETPOINT(Modbus.READ_INPUT_REGISTERS, 3032, 16, 1, BusPriority.BACKGROUND),
+	EVACUATION_LEVEL_SETPOINT(Modbus.READ_INPUT_REGISTERS, 3048, 16, 1, BusPriority.BACKGROUND),
+	SAMPLE_DISTANCE_SETPOINT(Modbus.READ_INPUT_REGISTERS, 3064, 16, 1, BusPriority.BACKGROUND),
+	ALARM_ACKNOWLEDGE_STATE(Modbus.READ_INPUT_REGISTERS, 3080, 16, 1, BusPriority.ALARM),
+	ALL_ALARM_ACKNOWLEDGE_STATE(Modbus.READ_INPUT_REGISTERS, 3096, 1, 1, BusPriority.ALARM);
+	
+	private final int functionCode;
+	private final int address;
+	private final int width;
+	private final int scale;
+	private final BusPriority priority;
+	
+	private MultiZoneRegister(int _functionCode, int _address, int _width, int _scale, BusPriority _priority) {
+		functionCode = _functionCode;
+		address = _address;
+		width = _width;
+		scale = _scale;
+		priority = _priority;
+	}
+	
+	/**
+	 * @return The modbus function code used to read this register. 03 or 04.
+	 */
+	public int getFunctionCode() {
+		return functionCode;
+	}
+	
+	/**
+	 * @return The address of the first register.
+	 */
+	public int getAddress() {
+		return address;
+	}
+	
+	/**
+	 * @return The number of consecutive registers. This is 16 for the registers that hold one value per zone.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return The value that the raw register is divided by to get the real value.
+	 */
+	public int getScale() {
+		return scale;
+	}
+	
+	/**
+	 * @return The priority this register is read with on the bus.
+	 */
+	public BusPriority getPriority() {
+		return priority;
+	}
+	
+	/**
+	 * @param index The zone number for registers with a width of 16, otherwise 0.
+	 * @return The address of the register at the given index.
+	 */
+	public int getAddress(int index) throws IllegalArgumentException {
+		if (index < 0 || index >= width) {
+			throw new IllegalArgumentException("The index must be between 0-" + (width - 1) + " for " + name() + ".");
+		}
+		return address + index;
+	}
+	
+	/**
+	 * @param rawValue
+	 * @return The raw value divided by the scale of this register.
+	 */
+	public double scale(int rawValue) {
+		return rawValue / (double) scale;
+	}
+	
+}
@@ -0,0 +1,65 @@
+package com.rbrubaker.multizone4j.registers;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+
+/**
+ * The modbus requests needed to read a set of registers. Use {@link ReadPlanner} to create a plan.
+ * A plan can be reused for every poll of the same registers.
+ * @author Justin Brubaker
+ *
+ */
+public class ReadPlan {
+
+	private final List<RegisterBlock> blocks;
+	
+	ReadPlan(List<RegisterBlock> _blocks) {
+		super();
+		blocks = Collections.unmodifiableList(_blocks);
+	}
+	
+	/**
+	 * @return The requests in the order they are sent.
+	 */
+	public List<RegisterBlock> getBlocks() {
+		return blocks;
+	}
+	
+	/**
+	 * @return The total number of registers read, including unused registers between the requested ones.
+	 */
+	public int getRegisterCount() {
+		int count = 0;
+		for (RegisterBlock block : blocks) {
+			count += block.getCount();
+		}
+		return count;
+	}
+	
+	/**
+	 * Sends every request in the plan back to back.
+	 * @param transport
+	 * @param modbusAddress The modbus address of the device to read.
+	 * @return The values that were read.
+	 * @throws ModbusException
+	 */
+	public RegisterValues execute(ModbusTransport transport, int modbusAddress) throws ModbusException {
+		int[][] values = new int[blocks.size()][];
+		
+		for (int i = 0; i < blocks.size(); i++) {
+			RegisterBlock block = blocks.get(i);
+			values[i] = transport.readRegisters(block.getFunctionCode(), modbusAddress, block.getStartAddress(), block.getCount());
+		}
+		
+		return new RegisterValues(blocks, values);
+	}
+	
+	@Override
+	public String toString() {
+		return blocks.toString();
+	}
+	
+}
@@ -0,0 +1,82 @@
+package com.rbrubaker.multizone4j.registers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Turns a set of {@link MultiZoneRegister}s into the fewest modbus read requests.
+ * Registers that are read with the same function code are merged into one request when the gap between them is small enough and the request stays within the modbus limit of 125 registers.
+ * Reading a few unused registers costs 2 bytes each, which is far less than the overhead of another request on a serial bus.
+ * @author Justin Brubaker
+ *
+ */
+public class ReadPlanner {
+
+	/**
+	 * The most registers that can be read with one function 03 or 04 request.
+	 */
+	public static final int MAX_REGISTERS_PER_REQUEST = 125;
+	/**
+	 * The default largest number of unused registers read to join two requests.
+	 */
+	public static final int DEFAULT_MAX_GAP = 8;
+	
+	private final int maxGap;
+	private final int maxRegistersPerRequest;
+	
+	public ReadPlanner() {
+		this(DEFAULT_MAX_GAP, MAX_REGISTERS_PER_REQUEST);
+	}
+	
+	/**
+	 * @param _maxGap The largest number of unused registers that will be read to join two requests.
+	 * @param _maxRegistersPerRequest The most registers read with one request. This can not be more than 125.
+	 */
+	public ReadPlanner(int _maxGap, int _maxRegistersPerRequest) throws IllegalArgumentException {
+		super();
+		if (_maxRegistersPerRequest < 16 || _maxRegistersPerRequest > MAX_REGISTERS_PER_REQUEST) {
+			throw new IllegalArgumentException("The registers per request must be between 16-125.");
+		}
+		maxGap = _maxGap;
+		maxRegistersPerRequest = _maxRegistersPerRequest;
+	}
+	
+	/**
+	 * @param registers The registers to read.
+	 * @return A plan that reads every given register.
+	 */
+	public ReadPlan plan(Collection<MultiZoneRegister> registers) {
+		ArrayList<MultiZoneRegister> sorted = new ArrayList<MultiZoneRegister>(registers);
+		sorted.sort(Comparator.comparingInt(MultiZoneRegister::getFunctionCode).thenComparingInt(MultiZoneRegister::getAddress));
+		
+		ArrayList<RegisterBlock> blocks = new ArrayList<RegisterBlock>();
+		int functionCode = -1;
+		int start = 0;
+		int end = 0;
+		
+		for (MultiZoneRegister register : sorted) {
+			int registerEnd = register.getAddress() + register.getWidth();
+			
+			if (register.getFunctionCode() == functionCode && register.getAddress() - end <= maxGap
+					&& Math.max(end, registerEnd) - start <= maxRegistersPerRequest) {
+				end = Math.max(end, registerEnd);
+				continue;
+			}
+			
+			if (functionCode != -1) {
+				blocks.add(new RegisterBlock(functionCode, start, end - start));
+			}
+			functionCode = register.getFunctionCode();
+			start = register.getAddress();
+			end = registerEnd;
+		}
+		
+		if (functionCode != -1) {
+			blocks.add(new RegisterBlock(functionCode, start, end - start));
+		}
+		
+		return new ReadPlan(blocks);
+	}
+	
+}
@@ -0,0 +1,61 @@
+package com.rbrubaker.multizone4j.registers;
+
+/**
+ * A run of consecutive registers that are read with one modbus request.
+ * @author Justin Brubaker
+ *
+ */
+public class RegisterBlock {
+
+	private final int functionCode;
+	private final int startAddress;
+	private final int count;
+	
+	public RegisterBlock(int _functionCode, int _startAddress, int _count) {
+		super();
+		functionCode = _functionCode;
+		startAddress = _startAddress;
+		count = _count;
+	}
+	
+	public int getFunctionCode() {
+		return functionCode;
+	}
+	
+	public int getStartAddress() {
+		return startAddress;
+	}
+	
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * @param _functionCode
+	 * @param address
+	 * @return true if this block reads the given address with the given function code.
+	 */
+	public boolean contains(int _functionCode, int address) {
+		return functionCode == _functionCode && address >= startAddress && address < startAddress + count;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof RegisterBlock)) {
+			return false;
+		}
+		RegisterBlock other = (RegisterBlock) obj;
+		return functionCode == other.functionCode && startAddress == other.startAddress && count == other.count;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (functionCode * 31 + startAddress) * 31 + count;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("FC%02d %d-%d", functionCode, startAddress, startAddress + count - 1);
+	}
+	
+}
@@ -0,0 +1,100 @@
+package com.rbrubaker.multizone4j.registers;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The raw register values read by a {@link ReadPlan}, decoded through the {@link MultiZoneRegister} catalogue.
+ * @author Justin Brubaker
+ *
+ */
+public class RegisterValues {
+
+	private final List<RegisterBlock> blocks;
+	private final int[][] values;
+	private final Instant readAt;
+	
+	RegisterValues(List<RegisterBlock> _blocks, int[][] _values) {
+		super();
+		blocks = _blocks;
+		values = _values;
+		readAt = Instant.now();
+	}
+	
+	/**
+	 * @return The time the last request of the plan finished.
+	 */
+	public Instant getReadAt() {
+		return readAt;
+	}
+	
+	/**
+	 * @param register
+	 * @return true if the register was read.
+	 */
+	public boolean contains(MultiZoneRegister register) {
+		for (RegisterBlock block : blocks) {
+			if (block.contains(register.getFunctionCode(), register.getAddress())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param register A register with a width of 1.
+	 * @return The raw value of the register.
+	 */
+	public int getValue(MultiZoneRegister register) throws IllegalArgumentException {
+		return getValue(register, 0);
+	}
+	
+	/**
+	 * @param register
+	 * @param index The zone number for registers with a width of 16, otherwise 0.
+	 * @return The raw value of the register.
+	 * @throws IllegalArgumentException If the register was not part of the plan.
+	 */
+	public int getValue(MultiZoneRegister register, int index) throws IllegalArgumentException {
+		int address = register.getAddress(index);
+		
+		for (int i = 0; i < blocks.size(); i++) {
+			RegisterBlock block = blocks.get(i);
+			if (block.contains(register.getFunctionCode(), address)) {
+				return values[i][address - block.getStartAddress()];
+			}
+		}
+		
+		throw new IllegalArgumentException(register.name() + " was not read.");
+	}
+	
+	/**
+	 * @param register A register with a width of 1.
+	 * @return The value of the register divided by its scale.
+	 */
+	public double getScaledValue(MultiZoneRegister register) throws IllegalArgumentException {
+		return register.scale(getValue(register, 0));
+	}
+	
+	/**
+	 * @param register
+	 * @param index The zone number for registers with a width of 16, otherwise 0.
+	 * @return The value of the register divided by its scale.
+	 */
+	public double getScaledValue(MultiZoneRegister register, int index) throws IllegalArgumentException {
+		return register.scale(getValue(register, index));
+	}
+	
+	/**
+	 * @param register
+	 * @return Every raw value of the register. One per zone for registers with a width of 16.
+	 */
+	public int[] getValues(MultiZoneRegister register) throws IllegalArgumentException {
+		int[] result = new int[register.getWidth()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = getValue(register, i);
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,92 @@
+package com.rbrubaker.multizone4j.simulator;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.slave.ModbusSlave;
+import com.ghgande.j2mod.modbus.slave.ModbusSlaveFactory;
+import com.rbrubaker.multizone4j.ModbusBus;
+import com.rbrubaker.multizone4j.MultiZoneDevice;
+import com.rbrubaker.multizone4j.transport.TcpTransport;
+
+/**
+ * A simulated modbus network of {@link SimulatedMultiZone} devices, served by a j2mod TCP slave on the loopback address.
+ * This allows {@link MultiZoneDevice} to be tested and benchmarked without a real detector.
+ * <pre>
+ * MultiZoneSimulator simulator = new MultiZoneSimulator(5020);
+ * SimulatedMultiZone simulated = simulator.addDevice(1);
+ * simulated.setZoneScript(0, ZoneScript.ramp(0, 600, 0, 60_000));
+ * simulator.start();
+ * 
+ * MultiZoneDevice device = new MultiZoneDevice(1, simulator.createBus());
+ * </pre>
+ * @author Justin Brubaker
+ *
+ */
+public class MultiZoneSimulator {
+
+	private final int port;
+	private final HashMap<Integer, SimulatedMultiZone> devices = new HashMap<Integer, SimulatedMultiZone>();
+	private ModbusSlave slave;
+	
+	/**
+	 * @param _port The TCP port to listen on.
+	 */
+	public MultiZoneSimulator(int _port) {
+		super();
+		port = _port;
+	}
+	
+	public int getPort() {
+		return port;
+	}
+	
+	/**
+	 * Adds a simulated device. Devices can be added before or after the simulator is started.
+	 * @param modbusAddress
+	 * @return The simulated device.
+	 */
+	public synchronized SimulatedMultiZone addDevice(int modbusAddress) {
+		SimulatedMultiZone device = new SimulatedMultiZone(modbusAddress);
+		devices.put(modbusAddress, device);
+		if (slave != null) {
+			slave.addProcessImage(modbusAddress, device);
+		}
+		return device;
+	}
+	
+	public synchronized SimulatedMultiZone getDevice(int modbusAddress) {
+		return devices.get(modbusAddress);
+	}
+	
+	/**
+	 * Starts listening on the loopback address.
+	 * @throws ModbusException
+	 */
+	public synchronized void start() throws ModbusException {
+		if (slave != null) {
+			return;
+		}
+		slave = ModbusSlaveFactory.createTCPSlave(InetAddress.getLoopbackAddress(), port, 4, false);
+		for (SimulatedMultiZone device : devices.values()) {
+			slave.addProcessImage(device.getUnitID(), device);
+		}
+		slave.open();
+	}
+	
+	public synchronized void stop() {
+		if (slave != null) {
+			ModbusSlaveFactory.close(slave);
+			slave = null;
+		}
+	}
+	
+	/**
+	 * @return A new bus connected to this simulator over TCP. Bind the devices under test to it.
+	 */
+	public ModbusBus createBus() {
+		return new ModbusBus(new TcpTransport(InetAddress.getLoopbackAddress().getHostAddress(), port));
+	}
+	
+}
@@ -0,0 +1,376 @@
+package com.rbrubaker.multizone4j.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ghgande.j2mod.modbus.procimg.IllegalAddressException;
+import com.ghgande.j2mod.modbus.procimg.InputRegister;
+import com.ghgande.j2mod.modbus.procimg.Register;
+import com.ghgande.j2mod.modbus.procimg.SimpleProcessImage;
+import com.rbrubaker.multizone4j.reference.CurrentState;
+import com.rbrubaker.multizone4j.reference.OperatingMode;
+import com.rbrubaker.multizone4j.registers.MultiZoneRegister;
+
+/**
+ * A simulated Bacharach MultiZone device. It implements the registers of Manual Sections B.4.1 (2000-2054) and B.4.2 (3000-3096) as a j2mod process image.
+ * 
+ * The device samples one zone at a time, spending the zone dwell time on each installed zone.
+ * A zone's ppm register only changes when its sample finishes, using the zone's {@link ZoneScript} at that time.
+ * Alarm statuses are worked out from the leak, spill and evacuation setpoints unless an alarm is forced.
+ * 
+ * Every request can be delayed, answered with a modbus exception or not answered at all, to test how the library copes with a slow or faulty device.
+ * Use {@link MultiZoneSimulator} to put simulated devices on a network.
+ * @author Justin Brubaker
+ *
+ */
+public class SimulatedMultiZone extends SimpleProcessImage {
+
+	private static final int STATUS_FIRST = 2000;
+	private static final int STATUS_COUNT = 55;
+	private static final int SETUP_FIRST = 3000;
+	private static final int SETUP_COUNT = 97;
+	
+	private final int[] setup = new int[SETUP_COUNT];
+	private final ZoneScript[] scripts = new ZoneScript[16];
+	private final int[] forcedAlarms = new int[16];
+	private final long startedAt = System.currentTimeMillis();
+	private volatile int zonesInstalled = 16;
+	private volatile long zoneDwellMillis = 15_000;
+	private volatile int faultCode = 0;
+	private volatile int operatingMode = OperatingMode.NORMAL;
+	private volatile long latencyMillis = 0;
+	private volatile double exceptionRate = 0;
+	private volatile double noResponseRate = 0;
+	private volatile long noResponseMillis = 10_000;
+	private final AtomicLong requestCount = new AtomicLong();
+	
+	public SimulatedMultiZone(int unitId) {
+		super(unitId);
+		for (int i = 0; i < 16; i++) {
+			scripts[i] = ZoneScript.constant(0);
+			forcedAlarms[i] = -1;
+			setup[MultiZoneRegister.LEAK_LEVEL_SETPOINT.getAddress(i) - SETUP_FIRST] = 100;
+			setup[MultiZoneRegister.SPILL_LEVEL_SETPOINT.getAddress(i) - SETUP_FIRST] = 300;
+			setup[MultiZoneRegister.EVACUATION_LEVEL_SETPOINT.getAddress(i) - SETUP_FIRST] = 500;
+			setup[MultiZoneRegister.SAMPLE_DISTANCE_SETPOINT.getAddress(i) - SETUP_FIRST] = 50;
+		}
+	}
+	
+	/**
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param script The concentration of the zone over time.
+	 */
+	public synchronized void setZoneScript(int zoneNumber, ZoneScript script) {
+		scripts[zoneNumber] = script;
+	}
+	
+	/**
+	 * Forces the alarm status of a zone regardless of its ppm.
+	 * @param zoneNumber This method uses zone numbers that start with 0. So zone 1 is zonenumber=0.
+	 * @param alarmStatus The alarm status, or -1 to work it out from the setpoints again.
+	 */
+	public synchronized void setForcedAlarm(int zoneNumber, int alarmStatus) {
+		forcedAlarms[zoneNumber] = alarmStatus;
+	}
+	
+	/**
+	 * @param _zonesInstalled 4, 8, 12 or 16.
+	 */
+	public void setZonesInstalled(int _zonesInstalled) {
+		zonesInstalled = _zonesInstalled;
+	}
+	
+	/**
+	 * @param _zoneDwellMillis How long the device samples each zone.
+	 */
+	public void setZoneDwellMillis(long _zoneDwellMillis) {
+		zoneDwellMillis = _zoneDwellMillis;
+	}
+	
+	/**
+	 * @param _faultCode The fault code reported in registers 2000 and 2041. 0 means no faults.
+	 */
+	public void setFaultCode(int _faultCode) {
+		faultCode = _faultCode;
+	}
+	
+	public void setOperatingMode(int _operatingMode) {
+		operatingMode = _operatingMode;
+	}
+	
+	/**
+	 * Writes a B.4.2 register directly, as if it was changed on the front panel.
+	 * @param registerNumber A register number between 3000 and 3096.
+	 * @param value
+	 */
+	public synchronized void setSetupRegister(int registerNumber, int value) {
+		setup[registerNumber - SETUP_FIRST] = value;
+	}
+	
+	/**
+	 * @param _latencyMillis How long the device takes to answer each request.
+	 */
+	public void setLatencyMillis(long _latencyMillis) {
+		latencyMillis = _latencyMillis;
+	}
+	
+	/**
+	 * @param rate The fraction of requests, between 0 and 1, that are answered with an illegal address exception.
+	 */
+	public void setExceptionRate(double rate) {
+		exceptionRate = rate;
+	}
+	
+	/**
+	 * @param rate The fraction of requests, between 0 and 1, that are not answered in time.
+	 * @param _noResponseMillis How long an unanswered request is held. This should be longer than the master's timeout.
+	 */
+	public void setNoResponseRate(double rate, long _noResponseMillis) {
+		noResponseRate = rate;
+		noResponseMillis = _noResponseMillis;
+	}
+	
+	/**
+	 * @return The number of register requests the device has received.
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+	
+	@Override
+	public Register[] getRegisterRange(int offset, int count) throws IllegalAddressException {
+		beginRequest();
+		Register[] regs = new Register[count];
+		for (int i = 0; i < count; i++) {
+			regs[i] = new SimulatedRegister(offset + i, readRegister(offset + i));
+		}
+		return regs;
+	}
+	
+	@Override
+	public Register getRegister(int offset) throws IllegalAddressException {
+		beginRequest();
+		return new SimulatedRegister(offset, readRegister(offset));
+	}
+	
+	@Override
+	public InputRegister[] getInputRegisterRange(int offset, int count) throws IllegalAddressException {
+		beginRequest();
+		InputRegister[] regs = new InputRegister[count];
+		for (int i = 0; i < count; i++) {
+			if (offset + i < SETUP_FIRST || offset + i >= SETUP_FIRST + SETUP_COUNT) {
+				throw new IllegalAddressException();
+			}
+			regs[i] = new SimulatedRegister(offset + i, readRegister(offset + i));
+		}
+		return regs;
+	}
+	
+	@Override
+	public InputRegister getInputRegister(int offset) throws IllegalAddressException {
+		return getInputRegisterRange(offset, 1)[0];
+	}
+	
+	@Override
+	public int getRegisterCount() {
+		return SETUP_FIRST + SETUP_COUNT;
+	}
+	
+	@Override
+	public int getInputRegisterCount() {
+		return SETUP_FIRST + SETUP_COUNT;
+	}
+	
+	private void beginRequest() throws IllegalAddressException {
+		requestCount.incrementAndGet();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		
+		if (noResponseRate > 0 && random.nextDouble() < noResponseRate) {
+			sleep(noResponseMillis);
+		} else if (latencyMillis > 0) {
+			sleep(latencyMillis);
+		}
+		
+		if (exceptionRate > 0 && random.nextDouble() < exceptionRate) {
+			throw new IllegalAddressException("Injected error");
+		}
+	}
+	
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private synchronized int readRegister(int registerNumber) throws IllegalAddressException {
+		if (registerNumber >= SETUP_FIRST && registerNumber < SETUP_FIRST + SETUP_COUNT) {
+			return setup[registerNumber - SETUP_FIRST];
+		}
+		if (registerNumber < STATUS_FIRST || registerNumber >= STATUS_FIRST + STATUS_COUNT) {
+			throw new IllegalAddressException();
+		}
+		
+		long elapsed = System.currentTimeMillis() - startedAt;
+		int zone = registerNumber - MultiZoneRegister.ZONE_PPM.getAddress();
+		if (zone >= 0 && zone < 16) {
+			return getSampledPpm(zone, elapsed);
+		}
+		zone = registerNumber - MultiZoneRegister.ZONE_ALARM_STATUS.getAddress();
+		if (zone >= 0 && zone < 16) {
+			return getAlarmStatus(zone, elapsed);
+		}
+		
+		switch (registerNumber) {
+			case 2000: return faultCode;
+			case 2033: return operatingMode;
+			case 2034: return faultCode == 0 ? CurrentState.SAMPLING : CurrentState.IDLE;
+			case 2036: return getActiveZone(elapsed) + 1;
+			case 2037: return getMaxAlarm(elapsed);
+			case 2038: return countAlarms(elapsed, false);
+			case 2039: return countAlarms(elapsed, true);
+			case 2041: return faultCode;
+			case 2042: return getMaxAlarm(elapsed) > 0 && setup[96] == 0 ? 1 : 0;
+			case 2043: return setup[96] == 0 ? 0 : 1;
+			case 2044: return getHighestZone(elapsed) + 1;
+			case 2045: return getSampledPpm(getHighestZone(elapsed), elapsed);
+			case 2046: return zonesInstalled;
+			case 2047: return 10132;
+			case 2048: return 10132;
+			case 2049: return 2540;
+			case 2050: return 4000;
+			case 2051: return 2500;
+			case 2052: return 500;
+			case 2053: return 1200;
+			case 2054: return scripts[getActiveZone(elapsed)].ppmAt(elapsed);
+			default: return 0;
+		}
+	}
+	
+	private int getActiveZone(long elapsed) {
+		return (int) ((elapsed / zoneDwellMillis) % zonesInstalled);
+	}
+	
+	/**
+	 * A zone's reading is the script value at the end of its last finished sample.
+	 */
+	private int getSampledPpm(int zone, long elapsed) {
+		if (zone >= zonesInstalled) {
+			return 0;
+		}
+		long cycle = zoneDwellMillis * zonesInstalled;
+		long firstFinish = (zone + 1) * zoneDwellMillis;
+		if (elapsed < firstFinish) {
+			return 0;
+		}
+		long lastFinish = firstFinish + ((elapsed - firstFinish) / cycle) * cycle;
+		return scripts[zone].ppmAt(lastFinish);
+	}
+	
+	private int getAlarmStatus(int zone, long elapsed) {
+		if (forcedAlarms[zone] >= 0) {
+			return forcedAlarms[zone];
+		}
+		int ppm = getSampledPpm(zone, elapsed);
+		if (ppm >= setup[MultiZoneRegister.EVACUATION_LEVEL_SETPOINT.getAddress(zone) - SETUP_FIRST]) {
+			return 3;
+		}
+		if (ppm >= setup[MultiZoneRegister.SPILL_LEVEL_SETPOINT.getAddress(zone) - SETUP_FIRST]) {
+			return 2;
+		}
+		if (ppm >= setup[MultiZoneRegister.LEAK_LEVEL_SETPOINT.getAddress(zone) - SETUP_FIRST]) {
+			return 1;
+		}
+		return 0;
+	}
+	
+	private int getMaxAlarm(long elapsed) {
+		int max = 0;
+		for (int zone = 0; zone < 16; zone++) {
+			if (setup[MultiZoneRegister.ALARM_ACKNOWLEDGE_STATE.getAddress(zone) - SETUP_FIRST] == 0) {
+				max = Math.max(max, getAlarmStatus(zone, elapsed));
+			}
+		}
+		return max;
+	}
+	
+	private int countAlarms(long elapsed, boolean acknowledged) {
+		int count = 0;
+		for (int zone = 0; zone < 16; zone++) {
+			boolean zoneAcknowledged = setup[MultiZoneRegister.ALARM_ACKNOWLEDGE_STATE.getAddress(zone) - SETUP_FIRST] != 0;
+			if (getAlarmStatus(zone, elapsed) > 0 && zoneAcknowledged == acknowledged) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private int getHighestZone(long elapsed) {
+		int highest = 0;
+		for (int zone = 1; zone < zonesInstalled; zone++) {
+			if (getSampledPpm(zone, elapsed) > getSampledPpm(highest, elapsed)) {
+				highest = zone;
+			}
+		}
+		return highest;
+	}
+	
+	private synchronized void writeRegister(int registerNumber, int value) throws IllegalAddressException {
+		if (registerNumber < SETUP_FIRST || registerNumber >= SETUP_FIRST + SETUP_COUNT) {
+			throw new IllegalAddressException();
+		}
+		setup[registerNumber - SETUP_FIRST] = value & 0xFFFF;
+	}
+	
+	/**
+	 * A register handed to j2mod. Writes go straight to the B.4.2 registers of the device.
+	 */
+	private class SimulatedRegister implements Register {
+		
+		private final int registerNumber;
+		private int value;
+		
+		private SimulatedRegister(int _registerNumber, int _value) {
+			registerNumber = _registerNumber;
+			value = _value & 0xFFFF;
+		}
+		
+		@Override
+		public int getValue() {
+			return value;
+		}
+		
+		@Override
+		public int toUnsignedShort() {
+			return value;
+		}
+		
+		@Override
+		public short toShort() {
+			return (short) value;
+		}
+		
+		@Override
+		public byte[] toBytes() {
+			return new byte[] { (byte) (value >> 8), (byte) value };
+		}
+		
+		@Override
+		public void setValue(int _value) {
+			writeRegister(registerNumber, _value);
+			value = _value & 0xFFFF;
+		}
+		
+		@Override
+		public void setValue(short _value) {
+			setValue(_value & 0xFFFF);
+		}
+		
+		@Override
+		public void setValue(byte[] bytes) {
+			setValue(((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF));
+		}
+	}
+	
+}
@@ -0,0 +1,54 @@
+package com.rbrubaker.multizone4j.simulator;
+
+/**
+ * Describes the refrigerant concentration of a simulated zone over time.
+ * @author Justin Brubaker
+ *
+ */
+@FunctionalInterface
+public interface ZoneScript {
+
+	/**
+	 * @param elapsedMillis The time since the simulator started.
+	 * @return The ppm the zone would read at that time.
+	 */
+	public int ppmAt(long elapsedMillis);
+	
+	/**
+	 * @param ppm
+	 * @return A script that always reads the same ppm.
+	 */
+	public static ZoneScript constant(int ppm) {
+		return elapsedMillis -> ppm;
+	}
+	
+	/**
+	 * @param fromPpm The ppm at the start.
+	 * @param toPpm The ppm once the ramp has finished.
+	 * @param startMillis When the ramp starts.
+	 * @param durationMillis How long the ramp takes.
+	 * @return A script that ramps linearly between two levels, such as a developing leak.
+	 */
+	public static ZoneScript ramp(int fromPpm, int toPpm, long startMillis, long durationMillis) {
+		return elapsedMillis -> {
+			if (elapsedMillis <= startMillis) {
+				return fromPpm;
+			}
+			if (elapsedMillis >= startMillis + durationMillis) {
+				return toPpm;
+			}
+			return (int) (fromPpm + (toPpm - fromPpm) * (elapsedMillis - startMillis) / durationMillis);
+		};
+	}
+	
+	/**
+	 * @param basePpm The ppm in the middle of the wave.
+	 * @param amplitudePpm How far above and below the base the ppm swings.
+	 * @param periodMillis The length of one full swing.
+	 * @return A script that swings smoothly around a base level.
+	 */
+	public static ZoneScript sine(int basePpm, int amplitudePpm, long periodMillis) {
+		return elapsedMillis -> (int) Math.max(0, Math.round(basePpm + amplitudePpm * Math.sin(2 * Math.PI * elapsedMillis / periodMillis)));
+	}
+	
+}
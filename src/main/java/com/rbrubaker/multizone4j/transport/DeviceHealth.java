@@ -0,0 +1,159 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a {@link RetryingTransport} has learned about one device: its round trip times, its timeout and whether it is quarantined.
+ * The round trip estimate follows RFC 6298. Only requests that were answered on the first attempt are measured, so a late answer to a retried request never skews it.
+ * The time to send the request and response on the wire is taken off each measurement, so the estimate is the device's turnaround no matter how long the response is.
+ * Each request adds its own transmit time back on top of the learned timeout.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceHealth {
+
+	private final int unitId;
+	private long smoothedRttNanos = -1;
+	private long rttVarianceNanos = 0;
+	private int consecutiveFailures = 0;
+	private long quarantinedUntilNanos = 0;
+	private Instant quarantinedAt = null;
+	private long probeIntervalNanos = 0;
+	private long answered = 0;
+	private long failed = 0;
+	
+	DeviceHealth(int _unitId) {
+		super();
+		unitId = _unitId;
+	}
+	
+	public int getUnitId() {
+		return unitId;
+	}
+	
+	/**
+	 * @return The smoothed round trip time, or null if no round trip has been measured yet.
+	 */
+	public synchronized Duration getSmoothedRtt() {
+		return smoothedRttNanos < 0 ? null : Duration.ofNanos(smoothedRttNanos);
+	}
+	
+	/**
+	 * @return The mean deviation of the round trip time.
+	 */
+	public synchronized Duration getRttVariance() {
+		return Duration.ofNanos(rttVarianceNanos);
+	}
+	
+	/**
+	 * @param policy
+	 * @return The timeout used for the first attempt of the next request, before the time to send the request and response is added.
+	 */
+	public synchronized Duration getTimeout(RetryPolicy policy) {
+		return Duration.ofMillis(getTimeoutMillis(policy, 0));
+	}
+	
+	public synchronized int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+	
+	/**
+	 * @return The number of requests the device answered, including exception responses.
+	 */
+	public synchronized long getAnswered() {
+		return answered;
+	}
+	
+	/**
+	 * @return The number of requests that failed every attempt.
+	 */
+	public synchronized long getFailed() {
+		return failed;
+	}
+	
+	public synchronized boolean isQuarantined() {
+		return quarantinedAt != null;
+	}
+	
+	/**
+	 * @return When the device was quarantined, or null if it is not quarantined.
+	 */
+	public synchronized Instant getQuarantinedAt() {
+		return quarantinedAt;
+	}
+	
+	/**
+	 * @param policy
+	 * @param transmitNanos The time to send the request and the response on the wire.
+	 */
+	synchronized int getTimeoutMillis(RetryPolicy policy, long transmitNanos) {
+		long timeout;
+		if (smoothedRttNanos < 0) {
+			timeout = policy.getInitialTimeout().toMillis();
+		} else {
+			timeout = TimeUnit.NANOSECONDS.toMillis(smoothedRttNanos + 4 * rttVarianceNanos);
+		}
+		long maxTimeout = policy.getMaxTimeout().toMillis();
+		timeout = Math.max(policy.getMinTimeout().toMillis(), Math.min(maxTimeout, timeout));
+		return (int) Math.min(maxTimeout, timeout + TimeUnit.NANOSECONDS.toMillis(transmitNanos + 999_999));
+	}
+	
+	/**
+	 * @return true if requests to the device should fail without being sent.
+	 */
+	synchronized boolean isBlocked(long nowNanos) {
+		return quarantinedAt != null && nowNanos - quarantinedUntilNanos < 0;
+	}
+	
+	/**
+	 * @param rttNanos The round trip time without the time to send the request and response.
+	 */
+	synchronized void recordAnswered(long rttNanos, boolean firstAttempt) {
+		rttNanos = Math.max(0, rttNanos);
+		answered++;
+		consecutiveFailures = 0;
+		quarantinedAt = null;
+		probeIntervalNanos = 0;
+		
+		if (!firstAttempt) {
+			return;
+		}
+		if (smoothedRttNanos < 0) {
+			smoothedRttNanos = rttNanos;
+			rttVarianceNanos = rttNanos / 2;
+		} else {
+			rttVarianceNanos = (3 * rttVarianceNanos + Math.abs(smoothedRttNanos - rttNanos)) / 4;
+			smoothedRttNanos = (7 * smoothedRttNanos + rttNanos) / 8;
+		}
+	}
+	
+	/**
+	 * @return The time until the device should be probed, or null if it was not quarantined by this failure.
+	 */
+	synchronized Duration recordFailed(RetryPolicy policy, long nowNanos) {
+		failed++;
+		consecutiveFailures++;
+		
+		int threshold = policy.getQuarantineThreshold();
+		if (threshold <= 0 || consecutiveFailures < threshold) {
+			return null;
+		}
+		
+		if (quarantinedAt == null) {
+			quarantinedAt = Instant.now();
+			probeIntervalNanos = policy.getProbeInterval().toNanos();
+		} else {
+			probeIntervalNanos = Math.min(probeIntervalNanos * 2, policy.getMaxProbeInterval().toNanos());
+		}
+		quarantinedUntilNanos = nowNanos + probeIntervalNanos;
+		return Duration.ofNanos(probeIntervalNanos);
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return String.format("unit=%d srtt=%s rttvar=%s failures=%d quarantined=%s", unitId, getSmoothedRtt(), getRttVariance(), consecutiveFailures, isQuarantined());
+	}
+	
+}
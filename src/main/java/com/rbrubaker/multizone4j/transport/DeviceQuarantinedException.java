@@ -0,0 +1,25 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.ModbusIOException;
+
+/**
+ * Thrown instead of sending a request to a device that has been quarantined by a {@link RetryingTransport}.
+ * @author Justin Brubaker
+ *
+ */
+public class DeviceQuarantinedException extends ModbusIOException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final int unitId;
+	
+	public DeviceQuarantinedException(int _unitId) {
+		super("The device with the modbus address " + _unitId + " is quarantined after repeated timeouts.");
+		unitId = _unitId;
+	}
+	
+	public int getUnitId() {
+		return unitId;
+	}
+	
+}
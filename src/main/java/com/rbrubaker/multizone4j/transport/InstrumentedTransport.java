@@ -0,0 +1,147 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+import com.rbrubaker.multizone4j.metrics.BusMetrics;
+
+/**
+ * A transport that times every request of another transport and records it in a {@link BusMetrics}.
+ * Every {@link com.rbrubaker.multizone4j.ModbusBus} wraps its transport in one of these.
+ * 
+ * Frame sizes are worked out from the request, so nothing is copied or buffered.
+ * @author Justin Brubaker
+ *
+ */
+public class InstrumentedTransport implements ModbusTransport {
+
+	private final ModbusTransport delegate;
+	private final BusMetrics metrics;
+	
+	public InstrumentedTransport(ModbusTransport _delegate, BusMetrics _metrics) {
+		super();
+		delegate = _delegate;
+		metrics = _metrics;
+	}
+	
+	public ModbusTransport getDelegate() {
+		return delegate;
+	}
+	
+	public BusMetrics getMetrics() {
+		return metrics;
+	}
+	
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+	
+	@Override
+	public void connect() throws Exception {
+		delegate.connect();
+	}
+	
+	@Override
+	public void disconnect() {
+		delegate.disconnect();
+	}
+	
+	@Override
+	public boolean isConnected() {
+		return delegate.isConnected();
+	}
+	
+	@Override
+	public int getTimeout() {
+		return delegate.getTimeout();
+	}
+	
+	@Override
+	public void setTimeout(int timeoutMillis) {
+		delegate.setTimeout(timeoutMillis);
+	}
+	
+	@Override
+	public int getFrameOverhead() {
+		return delegate.getFrameOverhead();
+	}
+	
+	@Override
+	public long getTransmitNanos(int bytes) {
+		return delegate.getTransmitNanos(bytes);
+	}
+	
+	@Override
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			int[] values = delegate.readHoldingRegisters(unitId, startAddress, count);
+			record(Modbus.READ_MULTIPLE_REGISTERS, unitId, startAddress, count, start, 5, 2 + 2 * count, null);
+			return values;
+		} catch (ModbusException e) {
+			record(Modbus.READ_MULTIPLE_REGISTERS, unitId, startAddress, count, start, 5, 0, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			int[] values = delegate.readInputRegisters(unitId, startAddress, count);
+			record(Modbus.READ_INPUT_REGISTERS, unitId, startAddress, count, start, 5, 2 + 2 * count, null);
+			return values;
+		} catch (ModbusException e) {
+			record(Modbus.READ_INPUT_REGISTERS, unitId, startAddress, count, start, 5, 0, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeSingleRegister(unitId, address, value);
+			record(Modbus.WRITE_SINGLE_REGISTER, unitId, address, 1, start, 5, 5, null);
+		} catch (ModbusException e) {
+			record(Modbus.WRITE_SINGLE_REGISTER, unitId, address, 1, start, 5, 0, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeMultipleRegisters(unitId, startAddress, values);
+			record(Modbus.WRITE_MULTIPLE_REGISTERS, unitId, startAddress, values.length, start, 6 + 2 * values.length, 5, null);
+		} catch (ModbusException e) {
+			record(Modbus.WRITE_MULTIPLE_REGISTERS, unitId, startAddress, values.length, start, 6 + 2 * values.length, 0, e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * @param requestPdu The size of the request without the frame overhead.
+	 * @param responsePdu The size of the response without the frame overhead, or 0 if it failed.
+	 */
+	private void record(int functionCode, int unitId, int startAddress, int count, long start, int requestPdu, int responsePdu, ModbusException failure) {
+		long nanos = System.nanoTime() - start;
+		int overhead = delegate.getFrameOverhead();
+		int received = 0;
+		if (failure instanceof ModbusSlaveException) {
+			// An exception response is the function code and the exception code.
+			received = overhead + 2;
+		} else if (failure == null) {
+			received = overhead + responsePdu;
+		}
+		metrics.record(functionCode, unitId, startAddress, count, nanos, overhead + requestPdu, received, failure);
+	}
+	
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+	
+}
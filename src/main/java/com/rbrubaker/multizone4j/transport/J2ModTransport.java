@@ -0,0 +1,105 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.facade.AbstractModbusMaster;
+import com.ghgande.j2mod.modbus.procimg.InputRegister;
+import com.ghgande.j2mod.modbus.procimg.Register;
+import com.ghgande.j2mod.modbus.procimg.SimpleRegister;
+
+/**
+ * A transport that runs requests through a j2mod modbus master.
+ * This can be used with any j2mod master. See {@link SerialRtuTransport}, {@link TcpTransport} and {@link RtuOverTcpTransport} for the usual ones.
+ * @author Justin Brubaker
+ *
+ */
+public class J2ModTransport implements ModbusTransport {
+
+	private final String name;
+	private final AbstractModbusMaster master;
+	
+	/**
+	 * @param _name A name for the connection.
+	 * @param _master The modbus master. It should not be connected yet.
+	 */
+	public J2ModTransport(String _name, AbstractModbusMaster _master) {
+		super();
+		name = _name;
+		master = _master;
+	}
+	
+	public AbstractModbusMaster getMaster() {
+		return master;
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Connects the master and turns off j2mod's own retries. Retries are handled by {@link RetryingTransport}.
+	 */
+	@Override
+	public void connect() throws Exception {
+		master.connect();
+		master.setRetries(0);
+	}
+	
+	@Override
+	public void disconnect() {
+		master.disconnect();
+	}
+	
+	@Override
+	public boolean isConnected() {
+		return master.isConnected();
+	}
+	
+	@Override
+	public int getTimeout() {
+		return master.getTimeout();
+	}
+	
+	@Override
+	public void setTimeout(int timeoutMillis) {
+		master.setTimeout(timeoutMillis);
+	}
+	
+	@Override
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return toValues(master.readMultipleRegisters(unitId, startAddress, count));
+	}
+	
+	@Override
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return toValues(master.readInputRegisters(unitId, startAddress, count));
+	}
+	
+	@Override
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+		master.writeSingleRegister(unitId, address, new SimpleRegister(value));
+	}
+	
+	@Override
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+		Register[] regs = new Register[values.length];
+		for (int i = 0; i < values.length; i++) {
+			regs[i] = new SimpleRegister(values[i]);
+		}
+		master.writeMultipleRegisters(unitId, startAddress, regs);
+	}
+	
+	private static int[] toValues(InputRegister[] regs) {
+		int[] values = new int[regs.length];
+		for (int i = 0; i < regs.length; i++) {
+			values[i] = regs[i].getValue();
+		}
+		return values;
+	}
+	
+	@Override
+	public String toString() {
+		return name;
+	}
+	
+}
@@ -0,0 +1,109 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.ModbusBus;
+
+/**
+ * A connection to a modbus network, such as a serial port or a serial to Ethernet gateway.
+ * Every {@link ModbusBus} runs its requests through one transport, so all devices expose the same api no matter how they are connected.
+ * 
+ * Transports are not thread safe. The bus only uses a transport from its worker thread.
+ * @author Justin Brubaker
+ *
+ */
+public interface ModbusTransport {
+
+	/**
+	 * @return A name for the connection. Ex. /dev/serial1 or tcp://192.168.1.20:502
+	 */
+	public String getName();
+	
+	public void connect() throws Exception;
+	
+	public void disconnect();
+	
+	public boolean isConnected();
+	
+	/**
+	 * @return How long to wait for a response in milliseconds.
+	 */
+	public int getTimeout();
+	
+	/**
+	 * @param timeoutMillis How long to wait for a response in milliseconds.
+	 */
+	public void setTimeout(int timeoutMillis);
+	
+	/**
+	 * The bytes added to each modbus PDU on the wire. Modbus RTU adds the address and a 2 byte CRC.
+	 * @return The number of bytes added to each request and response.
+	 */
+	public default int getFrameOverhead() {
+		return 3;
+	}
+	
+	/**
+	 * How long it takes to send bytes on the wire. A slow serial line needs a longer timeout for a long response.
+	 * @param bytes The number of bytes including the frame overhead.
+	 * @return The time in nanoseconds. 0 if the transport is fast enough that it does not matter.
+	 */
+	public default long getTransmitNanos(int bytes) {
+		return 0;
+	}
+	
+	/**
+	 * Function code 03.
+	 * @param unitId The modbus address of the device.
+	 * @param startAddress
+	 * @param count
+	 * @return The register values.
+	 * @throws ModbusException
+	 */
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException;
+	
+	/**
+	 * Function code 04.
+	 * @param unitId The modbus address of the device.
+	 * @param startAddress
+	 * @param count
+	 * @return The register values.
+	 * @throws ModbusException
+	 */
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException;
+	
+	/**
+	 * Function code 06.
+	 * @param unitId The modbus address of the device.
+	 * @param address
+	 * @param value
+	 * @throws ModbusException
+	 */
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException;
+	
+	/**
+	 * Function code 16.
+	 * @param unitId The modbus address of the device.
+	 * @param startAddress
+	 * @param values
+	 * @throws ModbusException
+	 */
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException;
+	
+	/**
+	 * Reads holding or input registers depending on the function code.
+	 * @param functionCode 03 or 04.
+	 * @param unitId The modbus address of the device.
+	 * @param startAddress
+	 * @param count
+	 * @return The register values.
+	 * @throws ModbusException
+	 */
+	public default int[] readRegisters(int functionCode, int unitId, int startAddress, int count) throws ModbusException {
+		if (functionCode == Modbus.READ_INPUT_REGISTERS) {
+			return readInputRegisters(unitId, startAddress, count);
+		}
+		return readHoldingRegisters(unitId, startAddress, count);
+	}
+	
+}
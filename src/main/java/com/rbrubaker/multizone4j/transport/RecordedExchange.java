@@ -0,0 +1,129 @@
+package com.rbrubaker.multizone4j.transport;
+
+/**
+ * One request and its response, as saved by a {@link RecordingTransport}.
+ * @author Justin Brubaker
+ *
+ */
+public class RecordedExchange {
+
+	/**
+	 * The device answered normally.
+	 */
+	public static final int OK = 0;
+	/**
+	 * The device answered with a modbus exception response.
+	 */
+	public static final int EXCEPTION_RESPONSE = 1;
+	/**
+	 * The device did not answer, or the answer could not be read.
+	 */
+	public static final int NO_RESPONSE = 2;
+	
+	private final long offsetNanos;
+	private final long durationNanos;
+	private final int unitId;
+	private final int functionCode;
+	private final int startAddress;
+	private final int count;
+	private final int outcome;
+	private final int exceptionCode;
+	private final int[] values;
+	
+	/**
+	 * @param _offsetNanos When the request was sent, from the start of the recording.
+	 * @param _durationNanos How long the response took.
+	 * @param _unitId
+	 * @param _functionCode
+	 * @param _startAddress
+	 * @param _count
+	 * @param _outcome {@link #OK}, {@link #EXCEPTION_RESPONSE} or {@link #NO_RESPONSE}.
+	 * @param _exceptionCode The modbus exception code of an exception response, otherwise 0.
+	 * @param _values The registers read, or the registers written. The array is not copied.
+	 */
+	public RecordedExchange(long _offsetNanos, long _durationNanos, int _unitId, int _functionCode, int _startAddress, int _count, int _outcome, int _exceptionCode, int[] _values) {
+		super();
+		offsetNanos = _offsetNanos;
+		durationNanos = _durationNanos;
+		unitId = _unitId;
+		functionCode = _functionCode;
+		startAddress = _startAddress;
+		count = _count;
+		outcome = _outcome;
+		exceptionCode = _exceptionCode;
+		values = _values;
+	}
+	
+	/**
+	 * @return When the request was sent, in nanoseconds from the start of the recording.
+	 */
+	public long getOffsetNanos() {
+		return offsetNanos;
+	}
+	
+	/**
+	 * @return How long the response took in nanoseconds.
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+	
+	public int getUnitId() {
+		return unitId;
+	}
+	
+	public int getFunctionCode() {
+		return functionCode;
+	}
+	
+	public int getStartAddress() {
+		return startAddress;
+	}
+	
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return {@link #OK}, {@link #EXCEPTION_RESPONSE} or {@link #NO_RESPONSE}.
+	 */
+	public int getOutcome() {
+		return outcome;
+	}
+	
+	/**
+	 * @return The modbus exception code of an exception response, otherwise 0.
+	 */
+	public int getExceptionCode() {
+		return exceptionCode;
+	}
+	
+	/**
+	 * @return The registers read, or the registers written. Empty for a failed read.
+	 */
+	public int[] getValues() {
+		return values.clone();
+	}
+	
+	/**
+	 * @param _unitId
+	 * @param _functionCode
+	 * @param _startAddress
+	 * @param _count
+	 * @return true if this exchange is an answer to the given request.
+	 */
+	public boolean matches(int _unitId, int _functionCode, int _startAddress, int _count) {
+		return unitId == _unitId && functionCode == _functionCode && startAddress == _startAddress && count == _count;
+	}
+	
+	int[] getValuesInternal() {
+		return values;
+	}
+	
+	@Override
+	public String toString() {
+		String result = outcome == OK ? "OK" : outcome == EXCEPTION_RESPONSE ? "Exception " + exceptionCode : "No Response";
+		return String.format("+%.3fms Unit %d FC%02d %d-%d %s in %.3fms", offsetNanos / 1e6, unitId, functionCode, startAddress, startAddress + count - 1, result, durationNanos / 1e6);
+	}
+	
+}
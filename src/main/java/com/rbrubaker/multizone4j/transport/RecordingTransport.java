@@ -0,0 +1,207 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+
+/**
+ * A transport that saves every request of another transport, with its response and timing, to a {@link TrafficRecording} file.
+ * Play the file back with a {@link ReplayTransport}.
+ * 
+ * Wrap the transport that talks to the port, so that every attempt made by the bus is recorded:
+ * new ModbusBus(new RecordingTransport(new SerialRtuTransport("/dev/serial1", 19200), Paths.get("capture.mzt")))
+ * 
+ * Each record is written out as soon as the response arrives. If the file can not be written the recording stops, see {@link #getRecordingError()}, but the requests keep going to the device.
+ * @author Justin Brubaker
+ *
+ */
+public class RecordingTransport implements ModbusTransport, Closeable {
+
+	private final ModbusTransport delegate;
+	private final long startNanos;
+	private final CRC32 crc = new CRC32();
+	private ByteBuffer recordBuffer = ByteBuffer.allocate(512);
+	private DataOutputStream out;
+	private IOException recordingError;
+	private long recordCount = 0;
+	
+	/**
+	 * @param _delegate The transport to record.
+	 * @param file The file to record to. An existing file is replaced.
+	 * @throws IOException If the file can not be created.
+	 */
+	public RecordingTransport(ModbusTransport _delegate, Path file) throws IOException {
+		super();
+		delegate = _delegate;
+		out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+		startNanos = System.nanoTime();
+		TrafficRecording.writeHeader(out, delegate.getName(), Instant.now());
+		out.flush();
+	}
+	
+	public ModbusTransport getDelegate() {
+		return delegate;
+	}
+	
+	/**
+	 * @return The number of exchanges recorded.
+	 */
+	public synchronized long getRecordCount() {
+		return recordCount;
+	}
+	
+	/**
+	 * @return The error that stopped the recording, or null if it is still recording.
+	 */
+	public synchronized IOException getRecordingError() {
+		return recordingError;
+	}
+	
+	/**
+	 * Stops recording and closes the file. The transport keeps working.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+	
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+	
+	@Override
+	public void connect() throws Exception {
+		delegate.connect();
+	}
+	
+	@Override
+	public void disconnect() {
+		delegate.disconnect();
+	}
+	
+	@Override
+	public boolean isConnected() {
+		return delegate.isConnected();
+	}
+	
+	@Override
+	public int getTimeout() {
+		return delegate.getTimeout();
+	}
+	
+	@Override
+	public void setTimeout(int timeoutMillis) {
+		delegate.setTimeout(timeoutMillis);
+	}
+	
+	@Override
+	public int getFrameOverhead() {
+		return delegate.getFrameOverhead();
+	}
+	
+	@Override
+	public long getTransmitNanos(int bytes) {
+		return delegate.getTransmitNanos(bytes);
+	}
+	
+	@Override
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			int[] values = delegate.readHoldingRegisters(unitId, startAddress, count);
+			record(start, unitId, Modbus.READ_MULTIPLE_REGISTERS, startAddress, count, values, null);
+			return values;
+		} catch (ModbusException e) {
+			record(start, unitId, Modbus.READ_MULTIPLE_REGISTERS, startAddress, count, new int[0], e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			int[] values = delegate.readInputRegisters(unitId, startAddress, count);
+			record(start, unitId, Modbus.READ_INPUT_REGISTERS, startAddress, count, values, null);
+			return values;
+		} catch (ModbusException e) {
+			record(start, unitId, Modbus.READ_INPUT_REGISTERS, startAddress, count, new int[0], e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeSingleRegister(unitId, address, value);
+			record(start, unitId, Modbus.WRITE_SINGLE_REGISTER, address, 1, new int[] {value}, null);
+		} catch (ModbusException e) {
+			record(start, unitId, Modbus.WRITE_SINGLE_REGISTER, address, 1, new int[] {value}, e);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeMultipleRegisters(unitId, startAddress, values);
+			record(start, unitId, Modbus.WRITE_MULTIPLE_REGISTERS, startAddress, values.length, values, null);
+		} catch (ModbusException e) {
+			record(start, unitId, Modbus.WRITE_MULTIPLE_REGISTERS, startAddress, values.length, values, e);
+			throw e;
+		}
+	}
+	
+	private synchronized void record(long start, int unitId, int functionCode, int startAddress, int count, int[] values, ModbusException failure) {
+		long end = System.nanoTime();
+		if (out == null) {
+			return;
+		}
+		
+		int outcome = RecordedExchange.OK;
+		int exceptionCode = 0;
+		if (failure instanceof ModbusSlaveException) {
+			outcome = RecordedExchange.EXCEPTION_RESPONSE;
+			exceptionCode = ((ModbusSlaveException) failure).getType();
+		} else if (failure != null) {
+			outcome = RecordedExchange.NO_RESPONSE;
+		}
+		
+		try {
+			RecordedExchange exchange = new RecordedExchange(start - startNanos, end - start, unitId, functionCode, startAddress, count, outcome, exceptionCode, values);
+			recordBuffer = TrafficRecording.writeRecord(out, exchange, recordBuffer, crc);
+			out.flush();
+			recordCount++;
+		} catch (IOException e) {
+			recordingError = e;
+			try {
+				out.close();
+			} catch (IOException ignored) {
+				
+			}
+			out = null;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+	
+}
@@ -0,0 +1,208 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusIOException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+
+/**
+ * A transport that answers requests from a {@link TrafficRecording} instead of a device, for reproducing field problems and for load testing without hardware.
+ * 
+ * Each request is answered by the next recorded exchange with the same unit id, function code, start address and count.
+ * Recorded exchanges that do not match are skipped, so a replay survives small differences in the order of requests. See {@link #getSkippedCount()}.
+ * A request with no matching exchange left fails with a {@link ModbusIOException}, as if the device did not answer.
+ * Exception responses and missing responses are replayed as they were recorded.
+ * 
+ * By default the answers are given as fast as possible. With {@link #setRealTime(boolean)} each answer is held back until the time it arrived in the recording, measured from the first request.
+ * @author Justin Brubaker
+ *
+ */
+public class ReplayTransport implements ModbusTransport {
+
+	private final TrafficRecording recording;
+	private final List<RecordedExchange> exchanges;
+	private volatile boolean realTime = false;
+	private volatile boolean loop = false;
+	private boolean connected = false;
+	private int timeoutMillis = Modbus.DEFAULT_TIMEOUT;
+	private int position = 0;
+	private long replayStartNanos = -1;
+	private long replayedCount = 0;
+	private long skippedCount = 0;
+	
+	public ReplayTransport(TrafficRecording _recording) {
+		super();
+		recording = _recording;
+		exchanges = recording.getExchanges();
+	}
+	
+	/**
+	 * @param file A file saved by a {@link RecordingTransport}.
+	 * @throws IOException If the file can not be read.
+	 */
+	public ReplayTransport(Path file) throws IOException {
+		this(TrafficRecording.read(file));
+	}
+	
+	public TrafficRecording getRecording() {
+		return recording;
+	}
+	
+	public boolean isRealTime() {
+		return realTime;
+	}
+	
+	/**
+	 * @param _realTime true to answer each request at the time it was answered in the recording, false to answer as fast as possible. The default is false.
+	 */
+	public void setRealTime(boolean _realTime) {
+		realTime = _realTime;
+	}
+	
+	public boolean isLoop() {
+		return loop;
+	}
+	
+	/**
+	 * @param _loop true to start again from the beginning of the recording when it runs out, for long running load tests. The default is false.
+	 */
+	public void setLoop(boolean _loop) {
+		loop = _loop;
+	}
+	
+	/**
+	 * @return The number of requests answered from the recording.
+	 */
+	public synchronized long getReplayedCount() {
+		return replayedCount;
+	}
+	
+	/**
+	 * @return The number of recorded exchanges passed over because they did not match the request being answered.
+	 */
+	public synchronized long getSkippedCount() {
+		return skippedCount;
+	}
+	
+	/**
+	 * Starts the replay again from the beginning of the recording.
+	 */
+	public synchronized void rewind() {
+		position = 0;
+		replayStartNanos = -1;
+	}
+	
+	@Override
+	public String getName() {
+		return "replay:" + recording.getTransportName();
+	}
+	
+	@Override
+	public synchronized void connect() throws Exception {
+		connected = true;
+	}
+	
+	@Override
+	public synchronized void disconnect() {
+		connected = false;
+	}
+	
+	@Override
+	public synchronized boolean isConnected() {
+		return connected;
+	}
+	
+	@Override
+	public synchronized int getTimeout() {
+		return timeoutMillis;
+	}
+	
+	@Override
+	public synchronized void setTimeout(int _timeoutMillis) {
+		timeoutMillis = _timeoutMillis;
+	}
+	
+	@Override
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return replay(unitId, Modbus.READ_MULTIPLE_REGISTERS, startAddress, count).getValues();
+	}
+	
+	@Override
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return replay(unitId, Modbus.READ_INPUT_REGISTERS, startAddress, count).getValues();
+	}
+	
+	@Override
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+		replay(unitId, Modbus.WRITE_SINGLE_REGISTER, address, 1);
+	}
+	
+	@Override
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+		replay(unitId, Modbus.WRITE_MULTIPLE_REGISTERS, startAddress, values.length);
+	}
+	
+	private RecordedExchange replay(int unitId, int functionCode, int startAddress, int count) throws ModbusException {
+		RecordedExchange exchange;
+		long answerAtNanos;
+		synchronized (this) {
+			int found = find(unitId, functionCode, startAddress, count, position, exchanges.size());
+			if (found < 0 && loop) {
+				found = find(unitId, functionCode, startAddress, count, 0, position);
+				if (found >= 0) {
+					// The recording starts again, so the timing does too.
+					skippedCount += exchanges.size() - position;
+					position = 0;
+					replayStartNanos = -1;
+				}
+			}
+			if (found < 0) {
+				throw new ModbusIOException(String.format("No recorded response for Unit %d FC%02d %d-%d", unitId, functionCode, startAddress, startAddress + count - 1));
+			}
+			
+			exchange = exchanges.get(found);
+			skippedCount += found - position;
+			position = found + 1;
+			replayedCount++;
+			if (replayStartNanos < 0) {
+				replayStartNanos = System.nanoTime() - exchange.getOffsetNanos();
+			}
+			answerAtNanos = replayStartNanos + exchange.getOffsetNanos() + exchange.getDurationNanos();
+		}
+		
+		if (realTime) {
+			long wait;
+			while ((wait = answerAtNanos - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+		}
+		
+		if (exchange.getOutcome() == RecordedExchange.EXCEPTION_RESPONSE) {
+			throw new ModbusSlaveException(exchange.getExceptionCode());
+		}
+		if (exchange.getOutcome() == RecordedExchange.NO_RESPONSE) {
+			throw new ModbusIOException("No response (recorded)");
+		}
+		return exchange;
+	}
+	
+	private int find(int unitId, int functionCode, int startAddress, int count, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (exchanges.get(i).matches(unitId, functionCode, startAddress, count)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+	
+}
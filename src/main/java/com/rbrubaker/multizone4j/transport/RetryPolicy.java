@@ -0,0 +1,158 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.time.Duration;
+
+/**
+ * The timeout, retry and quarantine settings of a {@link RetryingTransport}.
+ * 
+ * The timeout of each device is learned from its round trip times, the same way TCP does (RFC 6298), and kept between the minimum and maximum timeout.
+ * The time to send each request and its response at the bus baud rate is added on top, so a long block read gets a longer timeout than a short read.
+ * A request that gets no valid response is retried with a doubled timeout after a short, growing pause.
+ * A device that fails every attempt of several requests in a row is quarantined. Requests to it fail at once instead of holding up the bus,
+ * and it is probed in the background until it answers again.
+ * 
+ * The settings can be changed at any time. They apply from the next request.
+ * @author Justin Brubaker
+ *
+ */
+public class RetryPolicy {
+
+	/**
+	 * The default minimum timeout.
+	 */
+	public static final Duration DEFAULT_MIN_TIMEOUT = Duration.ofMillis(100);
+	/**
+	 * The minimum timeout a {@link com.rbrubaker.multizone4j.ModbusBus} uses for a serial line, where the device turnaround and the gaps between frames are slower.
+	 */
+	public static final Duration SERIAL_MIN_TIMEOUT = Duration.ofMillis(250);
+	
+	private volatile int maxAttempts = 3;
+	private volatile Duration initialTimeout = Duration.ofSeconds(1);
+	private volatile Duration minTimeout = DEFAULT_MIN_TIMEOUT;
+	private volatile Duration maxTimeout = Duration.ofSeconds(3);
+	private volatile Duration baseBackoff = Duration.ofMillis(20);
+	private volatile Duration maxBackoff = Duration.ofMillis(200);
+	private volatile int quarantineThreshold = 3;
+	private volatile Duration probeInterval = Duration.ofSeconds(30);
+	private volatile Duration maxProbeInterval = Duration.ofMinutes(5);
+	
+	/**
+	 * @return The number of times a request is sent before it fails, including the first time.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	/**
+	 * @param _maxAttempts The number of times a request is sent before it fails, including the first time. 1 disables retries.
+	 * @throws IllegalArgumentException If the number is less than 1.
+	 */
+	public void setMaxAttempts(int _maxAttempts) throws IllegalArgumentException {
+		if (_maxAttempts < 1) {
+			throw new IllegalArgumentException("A request must be sent at least once.");
+		}
+		maxAttempts = _maxAttempts;
+	}
+	
+	/**
+	 * @return The timeout used for a device before any round trip has been measured.
+	 */
+	public Duration getInitialTimeout() {
+		return initialTimeout;
+	}
+	
+	public void setInitialTimeout(Duration _initialTimeout) {
+		initialTimeout = _initialTimeout;
+	}
+	
+	public Duration getMinTimeout() {
+		return minTimeout;
+	}
+	
+	/**
+	 * @param _minTimeout The learned timeout is never shorter than this, before the time to send the request and response is added. It should cover the slowest turnaround of the devices.
+	 */
+	public void setMinTimeout(Duration _minTimeout) {
+		minTimeout = _minTimeout;
+	}
+	
+	public Duration getMaxTimeout() {
+		return maxTimeout;
+	}
+	
+	/**
+	 * @param _maxTimeout The learned timeout, and the doubled timeout of a retry, is never longer than this.
+	 */
+	public void setMaxTimeout(Duration _maxTimeout) {
+		maxTimeout = _maxTimeout;
+	}
+	
+	public Duration getBaseBackoff() {
+		return baseBackoff;
+	}
+	
+	/**
+	 * @param _baseBackoff The pause before the first retry. Each later retry pauses twice as long, up to the max backoff.
+	 */
+	public void setBaseBackoff(Duration _baseBackoff) {
+		baseBackoff = _baseBackoff;
+	}
+	
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+	
+	/**
+	 * The bus is idle during the pause, so this should be kept short.
+	 * @param _maxBackoff The longest pause before a retry.
+	 */
+	public void setMaxBackoff(Duration _maxBackoff) {
+		maxBackoff = _maxBackoff;
+	}
+	
+	/**
+	 * @return The number of failed requests in a row that quarantines a device.
+	 */
+	public int getQuarantineThreshold() {
+		return quarantineThreshold;
+	}
+	
+	/**
+	 * @param _quarantineThreshold The number of failed requests in a row that quarantines a device. 0 disables quarantine.
+	 */
+	public void setQuarantineThreshold(int _quarantineThreshold) {
+		quarantineThreshold = _quarantineThreshold;
+	}
+	
+	public Duration getProbeInterval() {
+		return probeInterval;
+	}
+	
+	/**
+	 * @param _probeInterval How long a device stays quarantined before it is probed. The interval doubles after each failed probe.
+	 */
+	public void setProbeInterval(Duration _probeInterval) {
+		probeInterval = _probeInterval;
+	}
+	
+	public Duration getMaxProbeInterval() {
+		return maxProbeInterval;
+	}
+	
+	/**
+	 * @param _maxProbeInterval The longest time between probes of a quarantined device.
+	 */
+	public void setMaxProbeInterval(Duration _maxProbeInterval) {
+		maxProbeInterval = _maxProbeInterval;
+	}
+	
+	/**
+	 * @param retry The retry number, starting at 1 for the first retry.
+	 * @return The pause before the retry in milliseconds.
+	 */
+	long getBackoffMillis(int retry) {
+		long backoff = baseBackoff.toMillis() << Math.min(retry - 1, 20);
+		return Math.min(backoff, maxBackoff.toMillis());
+	}
+	
+}
@@ -0,0 +1,204 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+
+/**
+ * A transport that gives each device its own timeout, retries requests that get no answer and quarantines devices that stop answering.
+ * See {@link RetryPolicy} for how each of these works.
+ * Exception responses are answers from the device, so they are never retried.
+ * 
+ * Every {@link com.rbrubaker.multizone4j.ModbusBus} wraps its transport in one of these, so one dead device cannot stall the devices behind it.
+ * @author Justin Brubaker
+ *
+ */
+public class RetryingTransport implements ModbusTransport {
+
+	private final ModbusTransport delegate;
+	private final RetryPolicy policy;
+	private final ConcurrentHashMap<Integer, DeviceHealth> health = new ConcurrentHashMap<Integer, DeviceHealth>();
+	private final BiConsumer<Integer, Duration> onQuarantined;
+	private int appliedTimeout = -1;
+	
+	/**
+	 * @param _delegate
+	 * @param _policy
+	 * @param _onQuarantined Called with the modbus address and the time until the next probe whenever a device is quarantined or fails a probe. Can be null.
+	 */
+	public RetryingTransport(ModbusTransport _delegate, RetryPolicy _policy, BiConsumer<Integer, Duration> _onQuarantined) {
+		super();
+		delegate = _delegate;
+		policy = _policy;
+		onQuarantined = _onQuarantined;
+	}
+	
+	public RetryPolicy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * @param unitId
+	 * @return What has been learned about the device.
+	 */
+	public DeviceHealth getHealth(int unitId) {
+		return health.computeIfAbsent(unitId, DeviceHealth::new);
+	}
+	
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+	
+	@Override
+	public void connect() throws Exception {
+		delegate.connect();
+		appliedTimeout = -1;
+	}
+	
+	@Override
+	public void disconnect() {
+		delegate.disconnect();
+	}
+	
+	@Override
+	public boolean isConnected() {
+		return delegate.isConnected();
+	}
+	
+	/**
+	 * The timeout is set per device by the policy, so this returns the last timeout that was applied.
+	 */
+	@Override
+	public int getTimeout() {
+		return delegate.getTimeout();
+	}
+	
+	/**
+	 * The timeout is set per device by the policy, so this call is ignored.
+	 * The policy is shared by every device on the bus, so a caller such as a discovery scan must not be able to change it by setting a timeout.
+	 * Use {@link RetryPolicy#setInitialTimeout(Duration)}, {@link RetryPolicy#setMinTimeout(Duration)} or {@link RetryPolicy#setMaxTimeout(Duration)} instead.
+	 */
+	@Override
+	public void setTimeout(int timeoutMillis) {
+		
+	}
+	
+	@Override
+	public int getFrameOverhead() {
+		return delegate.getFrameOverhead();
+	}
+	
+	@Override
+	public long getTransmitNanos(int bytes) {
+		return delegate.getTransmitNanos(bytes);
+	}
+	
+	@Override
+	public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return call(unitId, 5, 2 + 2 * count, () -> delegate.readHoldingRegisters(unitId, startAddress, count));
+	}
+	
+	@Override
+	public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+		return call(unitId, 5, 2 + 2 * count, () -> delegate.readInputRegisters(unitId, startAddress, count));
+	}
+	
+	@Override
+	public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+		call(unitId, 5, 5, () -> {
+			delegate.writeSingleRegister(unitId, address, value);
+			return null;
+		});
+	}
+	
+	@Override
+	public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+		call(unitId, 6 + 2 * values.length, 5, () -> {
+			delegate.writeMultipleRegisters(unitId, startAddress, values);
+			return null;
+		});
+	}
+	
+	/**
+	 * @param requestPdu The size of the request without the frame overhead.
+	 * @param responsePdu The size of the response without the frame overhead.
+	 */
+	private <T> T call(int unitId, int requestPdu, int responsePdu, Attempt<T> attempt) throws ModbusException {
+		DeviceHealth device = getHealth(unitId);
+		if (device.isBlocked(System.nanoTime())) {
+			throw new DeviceQuarantinedException(unitId);
+		}
+		
+		// A quarantined device that is due a probe only gets one attempt.
+		int attempts = device.isQuarantined() ? 1 : policy.getMaxAttempts();
+		// The learned timeout is the device's turnaround. The time to send this request and its response is added on top, so a long block read is not cut short by short reads.
+		int overhead = delegate.getFrameOverhead();
+		long transmitNanos = delegate.getTransmitNanos(requestPdu + overhead) + delegate.getTransmitNanos(responsePdu + overhead);
+		int timeout = device.getTimeoutMillis(policy, transmitNanos);
+		ModbusException failure = null;
+		
+		for (int i = 0; i < attempts; i++) {
+			if (i > 0) {
+				sleep(policy.getBackoffMillis(i));
+				timeout = (int) Math.min((long) timeout * 2, policy.getMaxTimeout().toMillis());
+			}
+			applyTimeout(timeout);
+			
+			long start = System.nanoTime();
+			try {
+				T result = attempt.run();
+				device.recordAnswered(System.nanoTime() - start - transmitNanos, i == 0);
+				return result;
+			} catch (ModbusSlaveException e) {
+				// An exception response is shorter than the expected response, so only the request is taken off.
+				device.recordAnswered(System.nanoTime() - start - delegate.getTransmitNanos(requestPdu + overhead), i == 0);
+				throw e;
+			} catch (ModbusException e) {
+				failure = e;
+			}
+			
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+		}
+		
+		Duration untilProbe = device.recordFailed(policy, System.nanoTime());
+		if (untilProbe != null && onQuarantined != null) {
+			onQuarantined.accept(unitId, untilProbe);
+		}
+		throw failure;
+	}
+	
+	private void applyTimeout(int timeout) {
+		if (timeout != appliedTimeout) {
+			delegate.setTimeout(timeout);
+			appliedTimeout = timeout;
+		}
+	}
+	
+	private static void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+	
+	@FunctionalInterface
+	private interface Attempt<T> {
+		T run() throws ModbusException;
+	}
+	
+}
@@ -0,0 +1,22 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.facade.ModbusTCPMaster;
+
+/**
+ * Modbus RTU frames sent over a TCP connection, for transparent serial to Ethernet gateways that pass the serial bytes through unchanged.
+ * The connection is reopened automatically if the gateway drops it.
+ * @author Justin Brubaker
+ *
+ */
+public class RtuOverTcpTransport extends J2ModTransport {
+
+	/**
+	 * @param host
+	 * @param port The TCP port of the gateway's serial channel.
+	 */
+	public RtuOverTcpTransport(String host, int port) {
+		super("rtu+tcp://" + host + ":" + port, new ModbusTCPMaster(host, port, Modbus.DEFAULT_TIMEOUT, true, true));
+	}
+	
+}
@@ -0,0 +1,39 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.facade.ModbusSerialMaster;
+import com.ghgande.j2mod.modbus.net.AbstractSerialConnection;
+import com.ghgande.j2mod.modbus.util.SerialParameters;
+
+/**
+ * Modbus RTU on a local serial port.
+ * This assumes the Bacharach MultiZone communication parameters. RTU, 8 data bits, No Parity Bit, 1 Stop Bit.
+ * @author Justin Brubaker
+ *
+ */
+public class SerialRtuTransport extends J2ModTransport {
+
+	private final int baudRate;
+	
+	/**
+	 * @param serialDeviceName The serial port name. Ex. /dev/serial1
+	 * @param _baudRate The baud rate of every device on the port.
+	 */
+	public SerialRtuTransport(String serialDeviceName, int _baudRate) {
+		super(serialDeviceName, new ModbusSerialMaster(new SerialParameters(serialDeviceName, _baudRate, AbstractSerialConnection.FLOW_CONTROL_DISABLED,
+				AbstractSerialConnection.FLOW_CONTROL_DISABLED, 8, AbstractSerialConnection.ONE_STOP_BIT, AbstractSerialConnection.NO_PARITY, false)));
+		baudRate = _baudRate;
+	}
+	
+	public int getBaudRate() {
+		return baudRate;
+	}
+	
+	/**
+	 * Each byte is sent as 10 bits. A start bit, 8 data bits and a stop bit.
+	 */
+	@Override
+	public long getTransmitNanos(int bytes) {
+		return bytes * 10L * 1_000_000_000L / baudRate;
+	}
+	
+}
@@ -0,0 +1,38 @@
+package com.rbrubaker.multizone4j.transport;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.facade.ModbusTCPMaster;
+
+/**
+ * Modbus TCP, for gateways that translate Modbus TCP to RTU on their serial side.
+ * The connection is reopened automatically if the gateway drops it.
+ * @author Justin Brubaker
+ *
+ */
+public class TcpTransport extends J2ModTransport {
+
+	/**
+	 * Uses the standard modbus TCP port 502.
+	 * @param host
+	 */
+	public TcpTransport(String host) {
+		this(host, Modbus.DEFAULT_PORT);
+	}
+	
+	/**
+	 * @param host
+	 * @param port
+	 */
+	public TcpTransport(String host, int port) {
+		super("tcp://" + host + ":" + port, new ModbusTCPMaster(host, port, Modbus.DEFAULT_TIMEOUT, true, false));
+	}
+	
+	/**
+	 * Modbus TCP replaces the address and CRC with a 7 byte MBAP header.
+	 */
+	@Override
+	public int getFrameOverhead() {
+		return 7;
+	}
+	
+}
@@ -0,0 +1,176 @@
+package com.rbrubaker.multizone4j.transport;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The traffic saved by a {@link RecordingTransport}.
+ * 
+ * A recording file starts with a header:
+ * 
+ * 0: magic (int), 4: version (int), 8: time the recording started in milliseconds since the epoch (long), 16: transport name length (short), 18: transport name (UTF-8).
+ * 
+ * It is followed by one record per exchange:
+ * 
+ * 0: offset in nanoseconds (long), 8: duration in nanoseconds (long), 16: unit id (byte), 17: function code (byte), 18: outcome (byte), 19: exception code (byte),
+ * 20: start address (short), 22: count (short), 24: number of values (short), 26: values (unsigned shorts), then a CRC32 of the record (int).
+ * 
+ * A record that is cut short or has a bad CRC ends the recording. This is how a record torn by a crash is found.
+ * @author Justin Brubaker
+ *
+ */
+public class TrafficRecording {
+
+	static final int FILE_MAGIC = 0x4D5A5452;
+	static final int VERSION = 1;
+	static final int RECORD_HEADER_SIZE = 26;
+	
+	private final String transportName;
+	private final Instant startedAt;
+	private final List<RecordedExchange> exchanges;
+	
+	public TrafficRecording(String _transportName, Instant _startedAt, List<RecordedExchange> _exchanges) {
+		super();
+		transportName = _transportName;
+		startedAt = _startedAt;
+		exchanges = Collections.unmodifiableList(new ArrayList<RecordedExchange>(_exchanges));
+	}
+	
+	/**
+	 * @return The name of the transport that was recorded.
+	 */
+	public String getTransportName() {
+		return transportName;
+	}
+	
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+	
+	/**
+	 * @return The exchanges in the order they happened.
+	 */
+	public List<RecordedExchange> getExchanges() {
+		return exchanges;
+	}
+	
+	/**
+	 * @param file
+	 * @return The recording in the file. A torn record at the end of the file is left out.
+	 * @throws IOException If the file can not be read or is not a version 1 recording.
+	 */
+	public static TrafficRecording read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a multizone4j traffic recording.");
+			}
+			Instant startedAt = Instant.ofEpochMilli(in.readLong());
+			byte[] name = new byte[in.readUnsignedShort()];
+			in.readFully(name);
+			
+			ArrayList<RecordedExchange> exchanges = new ArrayList<RecordedExchange>();
+			CRC32 crc = new CRC32();
+			RecordedExchange exchange;
+			while ((exchange = readRecord(in, crc)) != null) {
+				exchanges.add(exchange);
+			}
+			return new TrafficRecording(new String(name, StandardCharsets.UTF_8), startedAt, exchanges);
+		}
+	}
+	
+	static void writeHeader(DataOutputStream out, String transportName, Instant startedAt) throws IOException {
+		byte[] name = transportName.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(FILE_MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(startedAt.toEpochMilli());
+		out.writeShort(name.length);
+		out.write(name);
+	}
+	
+	/**
+	 * @param out
+	 * @param exchange
+	 * @param buffer A buffer to reuse. A larger one is returned if it is too small.
+	 * @param crc A CRC32 to reuse.
+	 * @return The buffer to use next time.
+	 * @throws IOException
+	 */
+	static ByteBuffer writeRecord(DataOutputStream out, RecordedExchange exchange, ByteBuffer buffer, CRC32 crc) throws IOException {
+		int[] values = exchange.getValuesInternal();
+		int size = RECORD_HEADER_SIZE + values.length * 2;
+		if (buffer.capacity() < size + 4) {
+			buffer = ByteBuffer.allocate(size + 4);
+		}
+		buffer.clear();
+		buffer.putLong(exchange.getOffsetNanos());
+		buffer.putLong(exchange.getDurationNanos());
+		buffer.put((byte) exchange.getUnitId());
+		buffer.put((byte) exchange.getFunctionCode());
+		buffer.put((byte) exchange.getOutcome());
+		buffer.put((byte) exchange.getExceptionCode());
+		buffer.putShort((short) exchange.getStartAddress());
+		buffer.putShort((short) exchange.getCount());
+		buffer.putShort((short) values.length);
+		for (int value : values) {
+			buffer.putShort((short) value);
+		}
+		crc.reset();
+		crc.update(buffer.array(), 0, size);
+		buffer.putInt((int) crc.getValue());
+		out.write(buffer.array(), 0, size + 4);
+		return buffer;
+	}
+	
+	private static RecordedExchange readRecord(DataInputStream in, CRC32 crc) throws IOException {
+		byte[] header = new byte[RECORD_HEADER_SIZE];
+		if (!readFully(in, header)) {
+			return null;
+		}
+		ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+		int valueCount = headerBuffer.getShort(24) & 0xFFFF;
+		byte[] rest = new byte[valueCount * 2 + 4];
+		if (!readFully(in, rest)) {
+			return null;
+		}
+		
+		crc.reset();
+		crc.update(header);
+		crc.update(rest, 0, valueCount * 2);
+		ByteBuffer restBuffer = ByteBuffer.wrap(rest);
+		if ((int) crc.getValue() != restBuffer.getInt(valueCount * 2)) {
+			return null;
+		}
+		
+		int[] values = new int[valueCount];
+		for (int i = 0; i < valueCount; i++) {
+			values[i] = restBuffer.getShort() & 0xFFFF;
+		}
+		return new RecordedExchange(headerBuffer.getLong(0), headerBuffer.getLong(8), header[16] & 0xFF, header[17] & 0xFF,
+				headerBuffer.getShort(20) & 0xFFFF, headerBuffer.getShort(22) & 0xFFFF, header[18] & 0xFF, header[19] & 0xFF, values);
+	}
+	
+	/**
+	 * @return false if the stream ended first.
+	 */
+	private static boolean readFully(DataInputStream in, byte[] bytes) throws IOException {
+		try {
+			in.readFully(bytes);
+			return true;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+	
+}
@@ -0,0 +1,177 @@
+package com.rbrubaker.multizone4j;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ghgande.j2mod.modbus.Modbus;
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.ghgande.j2mod.modbus.ModbusSlaveException;
+import com.rbrubaker.multizone4j.registers.RegisterBlock;
+import com.rbrubaker.multizone4j.simulator.MultiZoneSimulator;
+import com.rbrubaker.multizone4j.transport.ModbusTransport;
+import com.rbrubaker.multizone4j.transport.TcpTransport;
+
+public class TestConfigurationWrite {
+
+	public static void main(String[] args) throws IllegalArgumentException, ModbusException, Exception {
+		MultiZoneSimulator simulator = new MultiZoneSimulator(5021);
+		simulator.addDevice(1);
+		simulator.start();
+		
+		FaultyTransport transport = new FaultyTransport(new TcpTransport(InetAddress.getLoopbackAddress().getHostAddress(), 5021));
+		MultiZoneDevice one = null;
+		try {
+			one = new MultiZoneDevice(1, new ModbusBus(transport));
+			
+			// Zones 1 and 4 share one function 16 request. Zones 2 and 3 are in the gap, so their current values are written back.
+			// The spill setpoint is too far away to join the run, so it is written on its own with function 06.
+			ConfigurationWriteResult result = one.writeConfiguration(new ConfigurationUpdate()
+					.setLeakLevelSetpoint(0, 120)
+					.setLeakLevelSetpoint(3, 130)
+					.setSpillLevelSetpoint(0, 310));
+			System.out.println("Coalesced write: " + result);
+			checkWrites(result.getWrites(),
+					new RegisterBlock(Modbus.WRITE_MULTIPLE_REGISTERS, 3016, 4),
+					new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, 3032, 1));
+			check(result.getChangedRegisters() == 3, "Expected 3 changed registers but got " + result.getChangedRegisters());
+			check(one.getLeakLevelSetpoint(0) == 120, "Leak level setpoint zone 1 was not written");
+			check(one.getLeakLevelSetpoint(1) == 100, "Leak level setpoint zone 2 was changed by the gap fill");
+			check(one.getLeakLevelSetpoint(2) == 100, "Leak level setpoint zone 3 was changed by the gap fill");
+			check(one.getLeakLevelSetpoint(3) == 130, "Leak level setpoint zone 4 was not written");
+			check(one.getSpillLevelSetpoint(0) == 310, "Spill level setpoint zone 1 was not written");
+			
+			result = one.writeConfiguration(new ConfigurationUpdate().setLeakLevelSetpoint(0, 120));
+			System.out.println("Unchanged write: " + result);
+			check(result.isUnchanged(), "Writing the current value should not write anything");
+			checkWrites(result.getWrites());
+			
+			// A device without function 16 answers with an illegal function exception. Each changed register is then written with function 06.
+			transport.rejectMultipleWrites = true;
+			result = one.writeConfiguration(new ConfigurationUpdate()
+					.setLeakLevelSetpoint(5, 140)
+					.setLeakLevelSetpoint(7, 150));
+			System.out.println("Function 06 fallback: " + result);
+			checkWrites(result.getWrites(),
+					new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, 3021, 1),
+					new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, 3023, 1));
+			check(transport.rejectedWrites.get() == 1, "Function 16 should have been tried once but was tried " + transport.rejectedWrites.get() + " times");
+			check(one.getLeakLevelSetpoint(5) == 140, "Leak level setpoint zone 6 was not written");
+			check(one.getLeakLevelSetpoint(6) == 100, "Leak level setpoint zone 7 should not have been written");
+			check(one.getLeakLevelSetpoint(7) == 150, "Leak level setpoint zone 8 was not written");
+			
+			result = one.writeConfiguration(new ConfigurationUpdate()
+					.setEvacuationLevelSetpoint(0, 600)
+					.setEvacuationLevelSetpoint(1, 610));
+			checkWrites(result.getWrites(),
+					new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, 3048, 1),
+					new RegisterBlock(Modbus.WRITE_SINGLE_REGISTER, 3049, 1));
+			check(transport.rejectedWrites.get() == 1, "Function 16 should not be tried again once the device has rejected it");
+			
+			// A device that acknowledges a write but keeps the old value fails the read back.
+			transport.ignoredRegister = 3064;
+			try {
+				one.writeConfiguration(new ConfigurationUpdate().setSampleDistanceSetpoint(0, 75));
+				throw new IllegalStateException("The write should have failed verification.");
+			} catch (ConfigurationVerificationException e) {
+				System.out.println("Verification failure: " + e.getMessage());
+				check(Arrays.equals(e.getMismatchedRegisters(), new int[] {3064}), "Expected register 3064 to mismatch but got " + Arrays.toString(e.getMismatchedRegisters()));
+				check(e.getResult().getAfter().getRegister(3064) == 50, "The read back should hold the old sample distance");
+			}
+		} finally {
+			if (one != null) {
+				one.disconnect();
+			}
+			simulator.stop();
+		}
+	}
+	
+	private static void checkWrites(List<RegisterBlock> writes, RegisterBlock... expected) {
+		check(writes.equals(Arrays.asList(expected)), "Expected writes " + Arrays.toString(expected) + " but got " + writes);
+	}
+	
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+	
+	/**
+	 * Passes everything to the simulator, but can act like a device without function 16 or a device that does not keep a write.
+	 */
+	private static class FaultyTransport implements ModbusTransport {
+	
+		private final ModbusTransport delegate;
+		private volatile boolean rejectMultipleWrites = false;
+		private final AtomicInteger rejectedWrites = new AtomicInteger();
+		private volatile int ignoredRegister = -1;
+		
+		private FaultyTransport(ModbusTransport _delegate) {
+			delegate = _delegate;
+		}
+		
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+		
+		@Override
+		public void connect() throws Exception {
+			delegate.connect();
+		}
+		
+		@Override
+		public void disconnect() {
+			delegate.disconnect();
+		}
+		
+		@Override
+		public boolean isConnected() {
+			return delegate.isConnected();
+		}
+		
+		@Override
+		public int getTimeout() {
+			return delegate.getTimeout();
+		}
+		
+		@Override
+		public void setTimeout(int timeoutMillis) {
+			delegate.setTimeout(timeoutMillis);
+		}
+		
+		@Override
+		public int getFrameOverhead() {
+			return delegate.getFrameOverhead();
+		}
+		
+		@Override
+		public int[] readHoldingRegisters(int unitId, int startAddress, int count) throws ModbusException {
+			return delegate.readHoldingRegisters(unitId, startAddress, count);
+		}
+		
+		@Override
+		public int[] readInputRegisters(int unitId, int startAddress, int count) throws ModbusException {
+			return delegate.readInputRegisters(unitId, startAddress, count);
+		}
+		
+		@Override
+		public void writeSingleRegister(int unitId, int address, int value) throws ModbusException {
+			if (address != ignoredRegister) {
+				delegate.writeSingleRegister(unitId, address, value);
+			}
+		}
+		
+		@Override
+		public void writeMultipleRegisters(int unitId, int startAddress, int[] values) throws ModbusException {
+			if (rejectMultipleWrites) {
+				rejectedWrites.incrementAndGet();
+				throw new ModbusSlaveException(Modbus.ILLEGAL_FUNCTION_EXCEPTION);
+			}
+			delegate.writeMultipleRegisters(unitId, startAddress, values);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,92 @@
+package com.rbrubaker.multizone4j;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ghgande.j2mod.modbus.ModbusException;
+import com.rbrubaker.multizone4j.simulator.MultiZoneSimulator;
+import com.rbrubaker.multizone4j.simulator.SimulatedMultiZone;
+import com.rbrubaker.multizone4j.simulator.ZoneScript;
+
+public class TestSimulatedDevice {
+
+	public static void main(String[] args) throws IllegalArgumentException, ModbusException, Exception {
+		MultiZoneSimulator simulator = new MultiZoneSimulator(5020);
+		SimulatedMultiZone simulated = simulator.addDevice(1);
+		simulated.setZonesInstalled(4);
+		simulated.setZoneDwellMillis(250);
+		simulated.setZoneScript(0, ZoneScript.constant(150));
+		simulated.setZoneScript(2, ZoneScript.ramp(0, 800, 0, 2000));
+		simulator.start();
+		
+		MultiZoneDevice one = null;
+		try {
+			one = new MultiZoneDevice(1, simulator.createBus());
+			one.setZonePollInterval(java.time.Duration.ZERO);
+			Thread.sleep(1500);
+			
+			DeviceSnapshot snapshot = one.getSnapshot();
+			List<CurrentZoneStatus> zones = snapshot.getAllCurrentZoneStatuses();
+			for (int i = 0; i < zones.size(); i++) {
+				CurrentZoneStatus status = zones.get(i);
+				System.out.println(String.format("Zone %s: %s ppm - %s alarm status", (i + 1) + "", status.getPPM() + "", status.getAlarmStatus() + ""));
+			}
+			check(zones.size() == 16, "Expected 16 zones but got " + zones.size());
+			check(zones.get(0).getPPM() == 150, "Zone 1 should read 150 ppm but read " + zones.get(0).getPPM());
+			check(zones.get(0).getAlarmStatus() == 1, "Zone 1 should be in leak alarm but was " + zones.get(0).getAlarmStatus());
+			check(zones.get(1).getPPM() == 0, "Zone 2 should read 0 ppm but read " + zones.get(1).getPPM());
+			int ramp = zones.get(2).getPPM();
+			check(ramp > 0 && ramp <= 800, "Zone 3 should be part way up its ramp but read " + ramp);
+			for (int i = 3; i < 16; i++) {
+				check(zones.get(i).getPPM() == 0, "Zone " + (i + 1) + " should read 0 ppm but read " + zones.get(i).getPPM());
+			}
+			
+			System.out.println("Active Zone: " + snapshot.getActiveZone());
+			System.out.println("Max Alarm: " + snapshot.getMaxAlarm());
+			System.out.println("Zones Installed: " + snapshot.getZonesInstalled());
+			check(snapshot.getActiveZone() >= 1 && snapshot.getActiveZone() <= 4, "Active zone out of range: " + snapshot.getActiveZone());
+			check(snapshot.getMaxAlarm() >= 1, "Max alarm should include the zone 1 leak but was " + snapshot.getMaxAlarm());
+			check(snapshot.getZonesInstalled() == 4, "Expected 4 zones installed but got " + snapshot.getZonesInstalled());
+			
+			int leak = one.getLeakLevelSetpoint(0);
+			System.out.println("Leak Level Setpoint Zone 1: " + leak);
+			check(leak == 100, "Leak level setpoint should be 100 but was " + leak);
+			
+			AtomicInteger highest = new AtomicInteger(-1);
+			DeviceDetail detail = one.getDetailAsync(new BlockListener() {
+				@Override
+				public void onDetailBlock(DeviceSnapshot block) {
+					System.out.println("Detail Block: Highest Conc " + block.getHighestConcentration());
+					highest.set(block.getHighestConcentration());
+				}
+			}).get();
+			check(highest.get() >= 150, "Highest concentration should be at least 150 but was " + highest.get());
+			
+			int spill = detail.getConfiguration().getSpillLevelSetpoint(0);
+			System.out.println("Spill Level Setpoint Zone 1: " + spill);
+			System.out.println("Alarm Acknowledge State Zone 1: " + detail.getAlarmAcknowledgeState(0));
+			check(spill == 300, "Spill level setpoint should be 300 but was " + spill);
+			check(detail.getAlarmAcknowledgeState(0) == 0, "Zone 1 alarm should not be acknowledged");
+			
+			simulated.setFaultCode(4);
+			int faultCode = one.getFaultCode();
+			System.out.println("Fault Code: " + faultCode);
+			check(faultCode == 4, "Fault code should be 4 but was " + faultCode);
+			
+			System.out.println("Requests: " + simulated.getRequestCount());
+			check(simulated.getRequestCount() > 0, "The simulator saw no requests");
+		} finally {
+			if (one != null) {
+				one.disconnect();
+			}
+			simulator.stop();
+		}
+	}
+	
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+	
+}